@@ -0,0 +1,93 @@
+import http from 'k6/http';
+import encoding from 'k6/encoding';
+import { check, fail } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+
+// One trend per stage of the authorization-code flow
+const authorizationRedirect = new Trend('stage_authorization_redirect', true);
+const providerAuthorize = new Trend('stage_provider_authorize', true);
+const callback = new Trend('stage_callback', true);
+const refresh = new Trend('stage_refresh', true);
+const fullLogin = new Trend('stage_full_login', true);
+const logins = new Counter('logins_completed');
+
+export const options = {
+  vus: Number(__ENV.VUS || 50),
+  duration: __ENV.DURATION || '2m',
+  summaryTrendStats: ['avg', 'p(50)', 'p(99)', 'p(99.9)', 'max'],
+  thresholds: {
+    checks: ['rate>0.99'],
+  },
+};
+
+
+// Share of logins by users the backend has never seen (registerNewUser); the rest come back as one of a
+// small set of users owned by this VU, so no two VUs ever log in as the same subject at the same time
+const NEW_USER_RATIO = Number(__ENV.NEW_USER_RATIO || 0.1);
+const RETURNING_USERS_PER_VU = Number(__ENV.RETURNING_USERS_PER_VU || 20);
+
+function nextIdentity() {
+  const username = Math.random() < NEW_USER_RATIO
+    ? `new-${__VU}-${__ITER}-${Date.now()}`
+    : `user-${__VU}-${__ITER % RETURNING_USERS_PER_VU}`;
+  return {
+    username,
+    claims: JSON.stringify({
+      oid: username,
+      email: `${username}@ist.com`,
+      preferred_username: `${username}@ist.com`,
+      name: `Load Test ${username}`,
+    }),
+  };
+}
+
+export default function () {
+  login();
+}
+
+// One full login through the authorization-code flow; extra headers go on every request to the backend
+export function login(headers = {}) {
+  // Each iteration is a fresh browser session
+  http.cookieJar().clear(BASE_URL);
+  const noRedirects = { redirects: 0, headers };
+  const start = Date.now();
+
+  // 1. Backend builds the authorization request and redirects to the provider
+  const redirect = http.get(`${BASE_URL}/oauth2/authorization/microsoft`, noRedirects);
+  authorizationRedirect.add(redirect.timings.duration);
+  if (!check(redirect, { 'authorization redirect': (r) => r.status === 302 })) {
+    fail(`authorization redirect returned ${redirect.status}`);
+  }
+
+  // 2. Stub provider login form: the posted username becomes the subject and the claims are added to the tokens
+  const authorize = http.post(redirect.headers.Location, nextIdentity(), { redirects: 0 });
+  providerAuthorize.add(authorize.timings.duration);
+  if (!check(authorize, { 'provider authorize': (r) => r.status === 302 })) {
+    fail(`provider authorize returned ${authorize.status}`);
+  }
+
+  // 3. Callback: code exchange, userinfo, UserService and the success handler
+  const login = http.get(authorize.headers.Location, noRedirects);
+  callback.add(login.timings.duration);
+  if (!check(login, { 'callback issued tokens': (r) => r.status === 200 && !!r.json('token') && !!r.json('refreshToken') })) {
+    fail(`callback returned ${login.status}`);
+  }
+
+  // Only UserService puts employeeId in the token; without it the login bypassed the path this test measures
+  const claims = JSON.parse(encoding.b64decode(login.json('token').split('.')[1], 'rawurl', 's'));
+  if (!check(claims, { 'token carries employeeId': (c) => Number.isInteger(c.employeeId) })) {
+    fail('callback token has no employeeId claim, so the login did not go through UserService');
+  }
+
+  // 4. AuthController.refreshToken with the issued refresh token
+  const renewed = http.post(`${BASE_URL}/api/auth/refresh`,
+    JSON.stringify({ refreshToken: login.json('refreshToken') }),
+    { headers: Object.assign({ 'Content-Type': 'application/json' }, headers) });
+  refresh.add(renewed.timings.duration);
+  check(renewed, { 'refresh issued tokens': (r) => r.status === 200 && !!r.json('token') });
+
+  fullLogin.add(Date.now() - start);
+  logins.add(1);
+}
@@ -0,0 +1,43 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const ALLOWED_ORIGIN = __ENV.ALLOWED_ORIGIN || 'http://localhost';
+
+// CORS preflight latency: OPTIONS requests the browser sends before cross-origin API calls,
+// for an allowed origin and for one that is rejected
+const allowedPreflight = new Trend('preflight_allowed', true);
+const rejectedPreflight = new Trend('preflight_rejected', true);
+
+export const options = {
+  vus: Number(__ENV.VUS || 50),
+  duration: __ENV.DURATION || '2m',
+  summaryTrendStats: ['avg', 'p(50)', 'p(99)', 'p(99.9)', 'max'],
+  thresholds: {
+    checks: ['rate>0.99'],
+  },
+};
+
+function preflight(origin) {
+  return http.options(`${BASE_URL}/api/auth/user`, null, {
+    headers: {
+      Origin: origin,
+      'Access-Control-Request-Method': 'GET',
+      'Access-Control-Request-Headers': 'authorization,content-type',
+    },
+  });
+}
+
+export default function () {
+  const allowed = preflight(ALLOWED_ORIGIN);
+  allowedPreflight.add(allowed.timings.duration);
+  check(allowed, {
+    'allowed origin preflight': (r) => r.status === 200
+      && r.headers['Access-Control-Allow-Origin'] === ALLOWED_ORIGIN,
+  });
+
+  const rejected = preflight('https://not-an-allowed-origin.example');
+  rejectedPreflight.add(rejected.timings.duration);
+  check(rejected, { 'other origin rejected': (r) => r.status === 403 });
+}
@@ -0,0 +1,62 @@
+#!/bin/sh
+# Compares cold-start time of the standard and fast-startup backend images.
+# Each run starts a fresh container against the same Postgres and measures the time until
+# /actuator/health on the management port reports UP.
+#
+# Usage: loadtest/startup-benchmark.sh [runs]
+set -eu
+
+RUNS=${1:-5}
+NETWORK=startup-benchmark
+DB=startup-benchmark-db
+BACKEND=startup-benchmark-backend
+
+cleanup() {
+    docker rm -f "$BACKEND" "$DB" >/dev/null 2>&1 || true
+    docker network rm "$NETWORK" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+docker build -q -f backend-dockerfile.txt -t leave-management-backend:standard . >/dev/null
+docker build -q -f backend-dockerfile.txt --build-arg FAST_STARTUP=true -t leave-management-backend:fast . >/dev/null
+
+docker network create "$NETWORK" >/dev/null
+docker run -d --name "$DB" --network "$NETWORK" \
+    -e POSTGRES_DB=leaves -e POSTGRES_USER=postgres -e POSTGRES_PASSWORD=postgres \
+    postgres:15-alpine >/dev/null
+until docker exec "$DB" pg_isready -U postgres >/dev/null 2>&1; do sleep 1; done
+
+now_ms() {
+    date +%s%3N
+}
+
+time_startup() {
+    image=$1
+    start=$(now_ms)
+    docker run -d --name "$BACKEND" --network "$NETWORK" -p 8081:8081 \
+        -e SPRING_DATASOURCE_URL=jdbc:postgresql://$DB:5432/leaves \
+        -e SPRING_DATASOURCE_USERNAME=postgres \
+        -e SPRING_DATASOURCE_PASSWORD=postgres \
+        -e SPRING_JPA_HIBERNATE_DDL_AUTO=update \
+        "$image" >/dev/null
+    until curl -fs http://localhost:8081/actuator/health 2>/dev/null | grep -q '"UP"'; do
+        sleep 0.1
+    done
+    echo $(( $(now_ms) - start ))
+    docker rm -f "$BACKEND" >/dev/null
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+for image in leave-management-backend:standard leave-management-backend:fast; do
+    results=""
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        results="$results$(time_startup "$image")
+"
+        i=$((i + 1))
+    done
+    echo "$image: median $(printf '%s' "$results" | median) ms to healthy over $RUNS runs ($(printf '%s' "$results" | tr '\n' ' '))"
+done
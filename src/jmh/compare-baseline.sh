@@ -0,0 +1,54 @@
+#!/bin/sh
+# Fails if any JMH benchmark regressed beyond a threshold against a stored baseline.
+# Both files are JMH JSON results (-rf json); benchmarks missing from either side are reported, not failed.
+# Throughput scores regress when they drop; time-per-op scores (avgt, sample, ss) regress when they grow.
+#
+# Usage: src/jmh/compare-baseline.sh <results.json> [baseline.json] [max-regression-percent]
+#        src/jmh/compare-baseline.sh --update <results.json> [baseline.json]
+set -eu
+
+if [ "${1:-}" = "--update" ]; then
+    RESULTS=${2:?results file required}
+    BASELINE=${3:-src/jmh/baseline.json}
+    cp "$RESULTS" "$BASELINE"
+    echo "Stored $RESULTS as baseline $BASELINE"
+    exit 0
+fi
+
+RESULTS=${1:?results file required}
+BASELINE=${2:-src/jmh/baseline.json}
+MAX_REGRESSION=${3:-10}
+
+if [ ! -f "$BASELINE" ]; then
+    echo "No baseline at $BASELINE; record one on the reference machine with --update" >&2
+    exit 2
+fi
+
+# One line per benchmark: key, mode, score; the key includes @Param values so each combination is compared
+scores() {
+    jq -r '.[] | [(.benchmark + ((.params // {}) | to_entries | map(":" + .key + "=" + .value) | join(""))),
+                  .mode, .primaryMetric.score] | @tsv' "$1" | sort
+}
+
+scores "$BASELINE" > "${TMPDIR:-/tmp}/jmh-baseline.$$"
+scores "$RESULTS" > "${TMPDIR:-/tmp}/jmh-results.$$"
+trap 'rm -f "${TMPDIR:-/tmp}/jmh-baseline.$$" "${TMPDIR:-/tmp}/jmh-results.$$"' EXIT
+
+join -t "$(printf '\t')" -a 1 -a 2 -e MISSING -o 0,1.2,1.3,2.3 \
+        "${TMPDIR:-/tmp}/jmh-baseline.$$" "${TMPDIR:-/tmp}/jmh-results.$$" |
+    awk -F '\t' -v max="$MAX_REGRESSION" '
+        $3 == "MISSING" { printf "NEW        %s\n", $1; next }
+        $4 == "MISSING" { printf "MISSING    %s\n", $1; next }
+        {
+            change = ($4 - $3) / $3 * 100
+            regression = ($2 == "thrpt") ? -change : change
+            status = (regression > max) ? "REGRESSED" : "ok"
+            if (regression > max) failed++
+            printf "%-10s %s: %.3f -> %.3f (%+.1f%%)\n", status, $1, $3, $4, change
+        }
+        END {
+            if (failed) {
+                printf "%d benchmark(s) regressed by more than %s%%\n", failed, max
+                exit 1
+            }
+        }'
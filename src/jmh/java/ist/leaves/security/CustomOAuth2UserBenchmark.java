@@ -0,0 +1,47 @@
+package ist.leaves.security;
+
+import ist.leaves.entity.Employee;
+import ist.leaves.entity.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomOAuth2UserBenchmark {
+
+    private CustomOAuth2User user;
+
+    @Setup
+    public void setUp() {
+        Employee employee = new Employee();
+        employee.setId(42L);
+        employee.setEmail("jane.doe@ist.com");
+        employee.setName("Jane Doe");
+        employee.setRole(Role.MANAGER);
+        employee.setActive(true);
+        user = new CustomOAuth2User(employee, Map.of("sub", "jane-subject", "email", "jane.doe@ist.com"));
+    }
+
+    // Called by Spring Security for every authorization decision on a request
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+}
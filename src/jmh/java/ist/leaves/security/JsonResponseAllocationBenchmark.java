@@ -0,0 +1,91 @@
+package ist.leaves.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Bytes allocated per auth response before (Map + writeValueAsString + getWriter) and after (JsonResponseWriter).
+// Run with the gc profiler and read gc.alloc.rate.norm; responseReset is the floor the mock response itself costs.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonResponseAllocationBenchmark {
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private ObjectMapper objectMapper;
+    private JsonResponseWriter writer;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        writer = new JsonResponseWriter(objectMapper);
+        JwtSigningEngine engine = new JwtSigningEngine(JwtSigningEngineBenchmark.SECRET);
+        long now = System.currentTimeMillis();
+        token = engine.sign("jane.doe@ist.com", now, now + 3_600_000);
+    }
+
+    // Flushing commits the mock response, and a committed response refuses to reset
+    private void reset() {
+        response.setCommitted(false);
+        response.reset();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse responseReset() {
+        reset();
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse tokensBefore() throws IOException {
+        reset();
+        Map<String, String> tokenResponse = new HashMap<>();
+        tokenResponse.put("token", token);
+        response.setContentType("application/json");
+        response.getWriter().write(objectMapper.writeValueAsString(tokenResponse));
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse tokensAfter() throws IOException {
+        reset();
+        writer.writeTokens(response, token, null);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse fixedErrorBefore() throws IOException {
+        reset();
+        response.setStatus(401);
+        response.setContentType("application/json");
+        response.getWriter().write(objectMapper.writeValueAsString(Map.of(
+                "error", JsonResponseWriter.AUTHENTICATION_FAILED,
+                "message", JsonResponseWriter.NULL_PRINCIPAL)));
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse fixedErrorAfter() throws IOException {
+        reset();
+        writer.writeError(response, 401, JsonResponseWriter.AUTHENTICATION_FAILED, JsonResponseWriter.NULL_PRINCIPAL);
+        return response;
+    }
+}
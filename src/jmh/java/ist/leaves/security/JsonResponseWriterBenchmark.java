@@ -0,0 +1,63 @@
+package ist.leaves.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonResponseWriterBenchmark {
+
+    private JsonResponseWriter writer;
+    private String token;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() {
+        writer = new JsonResponseWriter(new ObjectMapper());
+        JwtSigningEngine engine = new JwtSigningEngine(JwtSigningEngineBenchmark.SECRET);
+        long now = System.currentTimeMillis();
+        token = engine.sign("jane.doe@ist.com", now, now + 3_600_000);
+        refreshToken = "Zm9vYmFyLXJlZnJlc2gtdG9rZW4tZm9yLWJlbmNobWFya3M";
+    }
+
+    // Success-handler body: the access and refresh token of a completed login
+    @Benchmark
+    public MockHttpServletResponse writeTokens() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.writeTokens(response, token, refreshToken);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse writeFixedError() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.writeError(response, 401, JsonResponseWriter.AUTHENTICATION_FAILED,
+                JsonResponseWriter.NULL_PRINCIPAL);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse writeDynamicError() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.writeError(response, 401, JsonResponseWriter.AUTHENTICATION_FAILED,
+                "[invalid_token_response] An error occurred while attempting to retrieve the OAuth 2.0 Access Token");
+        return response;
+    }
+}
@@ -0,0 +1,55 @@
+package ist.leaves.security;
+
+import ist.leaves.entity.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSigningEngineBenchmark {
+
+    static final String SECRET = Base64.getEncoder().encodeToString(
+            "a-benchmark-secret-that-is-comfortably-over-256-bits".getBytes(StandardCharsets.US_ASCII));
+
+    private JwtSigningEngine engine;
+    private String token;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        engine = new JwtSigningEngine(SECRET);
+        now = System.currentTimeMillis();
+        token = engine.sign("jane.doe@ist.com", "Jane Doe", 42L, Role.MANAGER, now, now + 3_600_000);
+    }
+
+    @Benchmark
+    public String signSubject() {
+        return engine.sign("jane.doe@ist.com", now, now + 3_600_000);
+    }
+
+    @Benchmark
+    public String signEmployee() {
+        return engine.sign("jane.doe@ist.com", "Jane Doe", 42L, Role.MANAGER, now, now + 3_600_000);
+    }
+
+    @Benchmark
+    public byte[] verify() {
+        return engine.verify(token);
+    }
+}
@@ -0,0 +1,110 @@
+package ist.leaves.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ist.leaves.entity.Employee;
+import ist.leaves.entity.Role;
+import ist.leaves.metrics.AuthMetrics;
+import ist.leaves.service.EmployeeIdentityCache;
+import ist.leaves.service.OAuth2UserLoadCoordinator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// JwtTokenProvider on the signing engine against the jjwt builder path it replaced, for both overloads
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final long VALIDITY = 3_600_000;
+
+    private JwtTokenProvider provider;
+    private CustomOAuth2User user;
+
+    @Setup
+    public void setUp() {
+        AuthMetrics authMetrics = new AuthMetrics(new SimpleMeterRegistry(),
+                new EmployeeIdentityCache(10_000, 300_000), new OAuth2UserLoadCoordinator(50, 10_000));
+        provider = new JwtTokenProvider(new ObjectMapper(), authMetrics);
+        ReflectionTestUtils.setField(provider, "secretKey", JwtSigningEngineBenchmark.SECRET);
+        ReflectionTestUtils.setField(provider, "validityInMilliseconds", VALIDITY);
+        provider.init();
+
+        Employee employee = new Employee();
+        employee.setId(42L);
+        employee.setEmail("jane.doe@ist.com");
+        employee.setName("Jane Doe");
+        employee.setRole(Role.MANAGER);
+        employee.setActive(true);
+        user = new CustomOAuth2User(employee, Map.of("sub", "jane-subject"));
+    }
+
+    @Benchmark
+    public String engineSubject() {
+        return provider.generateToken("jane.doe@ist.com");
+    }
+
+    @Benchmark
+    public String engineEmployee() {
+        return provider.generateToken(user);
+    }
+
+    @Benchmark
+    public String jjwtSubject() {
+        return legacyGenerateToken("jane.doe@ist.com");
+    }
+
+    @Benchmark
+    public String jjwtEmployee() {
+        return legacyGenerateToken(user);
+    }
+
+    // The previous JwtTokenProvider.generateToken(String)
+    @SuppressWarnings("deprecation")
+    private static String legacyGenerateToken(String email) {
+        return Jwts.builder()
+                .setSubject(email)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + VALIDITY))
+                .signWith(SignatureAlgorithm.HS256, JwtSigningEngineBenchmark.SECRET)
+                .compact();
+    }
+
+    // The previous JwtTokenProvider.generateToken(CustomOAuth2User)
+    @SuppressWarnings("deprecation")
+    private static String legacyGenerateToken(CustomOAuth2User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", user.getEmail());
+        claims.put("name", user.getName());
+        claims.put("role", user.getRole());
+        claims.put("employeeId", user.getId());
+        claims.put("roles", new String[] { "USER", user.getRole().name() });
+
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(user.getEmail())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + VALIDITY))
+                .signWith(SignatureAlgorithm.HS256, JwtSigningEngineBenchmark.SECRET)
+                .compact();
+    }
+}
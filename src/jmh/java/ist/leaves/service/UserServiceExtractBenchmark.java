@@ -0,0 +1,64 @@
+package ist.leaves.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceExtractBenchmark {
+
+    private Map<String, Object> oidcAttributes;
+    private Map<String, Object> graphAttributes;
+
+    @Setup
+    public void setUp() {
+        // Microsoft OIDC userinfo: every helper finds its first key
+        oidcAttributes = new HashMap<>();
+        oidcAttributes.put("sub", "AAAAAAAAAAAAAAAAAAAAAIkzqFVrSaSaFHy782bbtaQ");
+        oidcAttributes.put("email", "jane.doe@ist.com");
+        oidcAttributes.put("name", "Jane Doe");
+        oidcAttributes.put("picture", "https://graph.microsoft.com/v1.0/me/photo/$value");
+        oidcAttributes.put("given_name", "Jane");
+        oidcAttributes.put("family_name", "Doe");
+
+        // Graph-style profile: the helpers fall through to their later keys
+        graphAttributes = new HashMap<>();
+        graphAttributes.put("oid", "00000000-0000-0000-66f3-3332eca7ea81");
+        graphAttributes.put("userPrincipalName", "jane.doe@ist.com");
+        graphAttributes.put("displayName", "Jane Doe");
+    }
+
+    @Benchmark
+    public void extractOidcAttributes(Blackhole blackhole) {
+        extractAll(oidcAttributes, blackhole);
+    }
+
+    @Benchmark
+    public void extractGraphAttributes(Blackhole blackhole) {
+        extractAll(graphAttributes, blackhole);
+    }
+
+    private static void extractAll(Map<String, Object> attributes, Blackhole blackhole) {
+        blackhole.consume(UserService.extractEmail(attributes));
+        blackhole.consume(UserService.extractMicrosoftId(attributes));
+        blackhole.consume(UserService.extractName(attributes));
+        blackhole.consume(UserService.extractPicture(attributes));
+    }
+}
@@ -0,0 +1,59 @@
+
+package ist.leaves.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsConfiguration;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class CorsPolicy {
+
+    private static final List<String> ALLOWED_METHODS = List.of("GET", "POST", "PUT", "DELETE", "OPTIONS");
+    private static final List<String> EXPOSED_HEADERS = List.of("Authorization");
+
+    private final Set<String> allowedOrigins;
+    private final Set<String> allowedMethods = Set.copyOf(ALLOWED_METHODS);
+    private final long maxAge;
+
+    // Header values for preflight responses never change, so they are built once
+    private final String allowedMethodsHeader = String.join(",", ALLOWED_METHODS);
+    private final String maxAgeHeader;
+
+    public CorsPolicy(@Value("${cors.allowed-origins}") String[] allowedOrigins,
+                      @Value("${cors.max-age:3600}") long maxAge) {
+        this.allowedOrigins = Set.copyOf(Arrays.stream(allowedOrigins).map(String::trim).toList());
+        this.maxAge = maxAge;
+        this.maxAgeHeader = Long.toString(maxAge);
+    }
+
+    public boolean isAllowedOrigin(String origin) {
+        return origin != null && allowedOrigins.contains(origin);
+    }
+
+    public boolean isAllowedMethod(String method) {
+        return method != null && allowedMethods.contains(method);
+    }
+
+    public String getAllowedMethodsHeader() {
+        return allowedMethodsHeader;
+    }
+
+    public String getMaxAgeHeader() {
+        return maxAgeHeader;
+    }
+
+    public CorsConfiguration toCorsConfiguration() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOrigins(List.copyOf(allowedOrigins));
+        configuration.setAllowedMethods(ALLOWED_METHODS);
+        configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(EXPOSED_HEADERS);
+        configuration.setAllowCredentials(true);
+        configuration.setMaxAge(maxAge);
+        return configuration;
+    }
+}
@@ -0,0 +1,55 @@
+
+package ist.leaves.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+public class CorsPreflightFilter extends OncePerRequestFilter {
+
+    private static final String VARY_VALUE = String.join(", ", HttpHeaders.ORIGIN,
+            HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS);
+
+    private final CorsPolicy corsPolicy;
+
+    public CorsPreflightFilter(CorsPolicy corsPolicy) {
+        this.corsPolicy = corsPolicy;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // Only an OPTIONS request with both Origin and Access-Control-Request-Method is a preflight
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        String requestedMethod = request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD);
+        if (!HttpMethod.OPTIONS.matches(request.getMethod()) || origin == null || requestedMethod == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        // Preflights are answered here, before Spring Security and MVC dispatch
+        response.setHeader(HttpHeaders.VARY, VARY_VALUE);
+        if (!corsPolicy.isAllowedOrigin(origin) || !corsPolicy.isAllowedMethod(requestedMethod)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, corsPolicy.getAllowedMethodsHeader());
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_MAX_AGE, corsPolicy.getMaxAgeHeader());
+        
+        // Any request header is allowed, so echo what the browser asked for
+        String requestedHeaders = request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS);
+        if (requestedHeaders != null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, requestedHeaders);
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+    }
+}
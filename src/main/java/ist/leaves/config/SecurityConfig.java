@@ -1,6 +1,7 @@
 
 package ist.leaves.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -8,16 +9,16 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestRedirectFilter;
+import org.springframework.security.web.csrf.CsrfFilter;
 import ist.leaves.service.UserService;
+import ist.leaves.security.AdmissionControlFilter;
+import ist.leaves.security.JwtAuthenticationFilter;
 import ist.leaves.security.OAuth2AuthenticationFailureHandler;
 import ist.leaves.security.OAuth2AuthenticationSuccessHandler;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 
-import java.util.Arrays;
-import java.util.List;
-
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -25,13 +26,22 @@ public class SecurityConfig {
     private final UserService userService;
     private final OAuth2AuthenticationFailureHandler oAuth2FailureHandler;
     private final OAuth2AuthenticationSuccessHandler oAuth2SuccessHandler;
+    private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AdmissionControlFilter admissionControlFilter;
+    private final CorsPolicy corsPolicy;
 
     public SecurityConfig(UserService userService,
                           OAuth2AuthenticationFailureHandler oAuth2FailureHandler,
-                          OAuth2AuthenticationSuccessHandler oAuth2SuccessHandler) {
+                          OAuth2AuthenticationSuccessHandler oAuth2SuccessHandler,
+                          JwtAuthenticationFilter jwtAuthenticationFilter,
+                          AdmissionControlFilter admissionControlFilter,
+                          CorsPolicy corsPolicy) {
         this.userService = userService;
         this.oAuth2FailureHandler = oAuth2FailureHandler;
         this.oAuth2SuccessHandler = oAuth2SuccessHandler;
+        this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.admissionControlFilter = admissionControlFilter;
+        this.corsPolicy = corsPolicy;
     }
 
     @Bean
@@ -42,14 +52,20 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()  // Allow OPTIONS requests without auth
                         .requestMatchers("/", "/error", "/login**", "/api/auth/**").permitAll()  // Allow auth endpoints
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()  // Only reachable on the internal management port
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
+                // Authenticate API calls carrying our own JWT before any OAuth2 handling
+                .addFilterAfter(jwtAuthenticationFilter, CsrfFilter.class)
+                // Rate limit per employee (or client IP) before the OAuth2 filters call Microsoft
+                .addFilterBefore(admissionControlFilter, OAuth2AuthorizationRequestRedirectFilter.class)
                 .oauth2Login(oauth -> oauth
                         .userInfoEndpoint(userInfo -> userInfo
                                 .userService(userService)
+                                .oidcUserService(userService::loadOidcUser)
                         )
                         .failureHandler(oAuth2FailureHandler)
                         .successHandler(oAuth2SuccessHandler)
@@ -63,31 +79,27 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // These filters only belong in the security chain; stop Boot from also registering them as servlet filters
     @Bean
-    CorsConfigurationSource corsConfigurationSource() {
-        CorsConfiguration configuration = new CorsConfiguration();
-        configuration.setAllowedOrigins(Arrays.asList(
-                "http://localhost",
-                "http://localhost:80",
-                "http://localhost:3000",
-                "http://localhost:8080",
-                "http://127.0.0.1",
-                "http://127.0.0.1:80",
-                "http://127.0.0.1:3000",
-                "http://127.0.0.1:8080",
-                "http://frontend",
-                "https://b1c7be00-4b60-43f3-be03-67e3b81ad66a.lovableproject.com",
-                "https://preview--employee-leave-system.lovable.app",
-                "https://id-preview--b1c7be00-4b60-43f3-be03-67e3b81ad66a.lovable.app"
-        ));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("*"));
-        configuration.setExposedHeaders(List.of("Authorization"));
-        configuration.setAllowCredentials(true);
-        configuration.setMaxAge(3600L);
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilterRegistration() {
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(admissionControlFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
 
+    @Bean
+    CorsConfigurationSource corsConfigurationSource() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-        source.registerCorsConfiguration("/**", configuration);
+        source.registerCorsConfiguration("/**", corsPolicy.toCorsConfiguration());
         return source;
     }
 }
@@ -1,8 +1,10 @@
 
 package ist.leaves.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -10,27 +12,13 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @EnableWebMvc
 public class WebConfig implements WebMvcConfigurer {
 
-    @Override
-    public void addCorsMappings(CorsRegistry registry) {
-        registry.addMapping("/**")
-                .allowedOrigins(
-                        "http://localhost",
-                        "http://localhost:80",
-                        "http://localhost:3000",
-                        "http://localhost:8080",
-                        "http://127.0.0.1",
-                        "http://127.0.0.1:80",
-                        "http://127.0.0.1:3000",
-                        "http://127.0.0.1:8080",
-                        "https://preview--employee-leave-system.lovable.app",
-                        "https://b1c7be00-4b60-43f3-be03-67e3b81ad66a.lovableproject.com",
-                        "https://id-preview--b1c7be00-4b60-43f3-be03-67e3b81ad66a.lovable.app",
-                        "http://frontend" // Docker service name
-                )
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("*")
-                .exposedHeaders("Authorization")
-                .allowCredentials(true)
-                .maxAge(3600); // 1 hour max age
+    // CORS headers on regular responses come from SecurityConfig's source, built from the same CorsPolicy
+    @Bean
+    public FilterRegistrationBean<CorsPreflightFilter> corsPreflightFilter(CorsPolicy corsPolicy) {
+        FilterRegistrationBean<CorsPreflightFilter> registration =
+                new FilterRegistrationBean<>(new CorsPreflightFilter(corsPolicy));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
     }
 }
@@ -4,14 +4,19 @@ package ist.leaves.controller;
 import java.util.HashMap;
 import java.util.Map;
 
+import ist.leaves.metrics.AuthMetrics;
 import ist.leaves.security.CustomOAuth2User;
 import ist.leaves.security.JwtTokenProvider;
+import ist.leaves.security.RefreshTokenStore;
+import ist.leaves.repository.EmployeeRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ist.leaves.entity.Employee;
@@ -22,36 +27,52 @@ public class AuthController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     private final JwtTokenProvider jwtTokenProvider;
+    private final RefreshTokenStore refreshTokenStore;
+    private final EmployeeRepository employeeRepository;
+    private final AuthMetrics authMetrics;
 
-    public AuthController(JwtTokenProvider jwtTokenProvider) {
+    public AuthController(JwtTokenProvider jwtTokenProvider, RefreshTokenStore refreshTokenStore,
+                          EmployeeRepository employeeRepository, AuthMetrics authMetrics) {
         this.jwtTokenProvider = jwtTokenProvider;
+        this.refreshTokenStore = refreshTokenStore;
+        this.employeeRepository = employeeRepository;
+        this.authMetrics = authMetrics;
     }
 
     @GetMapping("/token")
-    public ResponseEntity<Map<String, String>> getToken(@AuthenticationPrincipal OAuth2User principal) {
-        logger.info("Token requested by user: {}", principal != null ? principal.getName() : "unknown");
-        
+    public ResponseEntity<Map<String, String>> getToken() {
+        // Sessions are stateless, so no request here can carry a completed OAuth2 login to mint tokens from;
+        // tokens come only from the login callback and /api/auth/refresh
         Map<String, String> response = new HashMap<>();
-        String token;
+        response.put("error", "Authentication failed");
+        response.put("message", "Tokens are issued by the OAuth2 login callback and /api/auth/refresh");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, String>> refreshToken(@RequestBody Map<String, String> request) {
+        // Renews the access token locally instead of repeating the Microsoft OAuth2 flow
+        RefreshTokenStore.Rotation rotation = refreshTokenStore.rotate(request.get("refreshToken"));
         
-        if (principal instanceof CustomOAuth2User) {
-            CustomOAuth2User customOAuth2User = (CustomOAuth2User) principal;
-            token = jwtTokenProvider.generateToken(customOAuth2User);
-            logger.info("Generated token for CustomOAuth2User: {}", customOAuth2User.getEmail());
-        } else {
-            // Fallback for standard OAuth2User
-            String email = principal.getAttribute("email");
-            if (email == null) {
-                email = principal.getAttribute("preferred_username");
-            }
-            if (email == null) {
-                email = principal.getName();
+        // Role and active flag are re-read on every rotation so a demotion or deactivation takes effect
+        Employee employee = rotation == null ? null
+                : authMetrics.recordRepository("findById",
+                        () -> employeeRepository.findById(rotation.getEmployeeId())).orElse(null);
+        
+        Map<String, String> response = new HashMap<>();
+        if (employee == null || !employee.isActive()) {
+            if (rotation != null) {
+                refreshTokenStore.revokeEmployee(rotation.getEmployeeId());
             }
-            token = jwtTokenProvider.generateToken(email);
-            logger.info("Generated token for standard OAuth2User: {}", email);
+            response.put("error", "Authentication failed");
+            response.put("message", "Invalid or expired refresh token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
         
-        response.put("token", token);
+        response.put("token", jwtTokenProvider.generateToken(employee.getEmail(), employee.getName(),
+                employee.getId(), employee.getRole()));
+        response.put("refreshToken", rotation.getRefreshToken());
+        logger.info("Refreshed token for employee: {}", employee.getId());
         return ResponseEntity.ok(response);
     }
 
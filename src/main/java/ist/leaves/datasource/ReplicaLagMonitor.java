@@ -0,0 +1,89 @@
+
+package ist.leaves.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // Lag is zero when the replica has replayed everything it received, so an idle primary doesn't look like lag.
+    // That only holds while WAL is still streaming in: a replica cut off from the primary stops receiving and its
+    // LSNs stay equal, and a server that is not a standby has no LSNs at all. Reading the wal receiver status
+    // needs pg_read_all_stats (or pg_monitor) on the replica user; without it the replica is never used.
+    private static final String LAG_QUERY = "SELECT pg_is_in_recovery() AS in_recovery, "
+            + "EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') AS streaming, "
+            + "CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END AS lag";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagInMilliseconds;
+    private final long checkIntervalInMilliseconds;
+    private volatile boolean replicaUsable;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagInMilliseconds, long checkIntervalInMilliseconds) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.maxLagInMilliseconds = maxLagInMilliseconds;
+        this.checkIntervalInMilliseconds = checkIntervalInMilliseconds;
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkIntervalInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    void check() {
+        boolean usable;
+        try {
+            usable = Boolean.TRUE.equals(replicaJdbcTemplate.queryForObject(LAG_QUERY, (rs, rowNum) -> {
+                if (!rs.getBoolean("in_recovery")) {
+                    logger.warn("Replica datasource is not a standby, routing reads to primary");
+                    return false;
+                }
+                if (!rs.getBoolean("streaming")) {
+                    logger.warn("Replica is not streaming WAL from the primary, routing reads to primary");
+                    return false;
+                }
+                double lag = rs.getDouble("lag");
+                if (rs.wasNull()) {
+                    logger.warn("Replica has not replayed any transaction yet, routing reads to primary");
+                    return false;
+                }
+                if (lag > maxLagInMilliseconds) {
+                    logger.warn("Replica lag {} ms exceeds {} ms, routing reads to primary", lag, maxLagInMilliseconds);
+                    return false;
+                }
+                return true;
+            }));
+        } catch (RuntimeException ex) {
+            logger.warn("Replica lag check failed, routing reads to primary: {}", ex.getMessage());
+            usable = false;
+        }
+        if (usable && !replicaUsable) {
+            logger.info("Replica is within lag threshold, routing read-only transactions to it");
+        }
+        replicaUsable = usable;
+    }
+}
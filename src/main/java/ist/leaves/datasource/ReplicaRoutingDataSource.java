@@ -0,0 +1,43 @@
+
+package ist.leaves.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    // Kept on the request rather than the thread, so pooled and background threads never inherit it
+    private static final String WROTE_IN_REQUEST = ReplicaRoutingDataSource.class.getName() + ".WROTE_IN_REQUEST";
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Set once a request has written, so its later reads see its own writes
+            if (request != null) {
+                request.setAttribute(WROTE_IN_REQUEST, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+            return PRIMARY;
+        }
+        if ((request != null && request.getAttribute(WROTE_IN_REQUEST, RequestAttributes.SCOPE_REQUEST) != null)
+                || !lagMonitor.isReplicaUsable()) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+}
@@ -1,34 +1,35 @@
 
 package ist.leaves.exception;
 
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import ist.leaves.security.JsonResponseWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
 
 @ControllerAdvice
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private final JsonResponseWriter jsonResponseWriter;
+
+    public RestExceptionHandler(JsonResponseWriter jsonResponseWriter) {
+        this.jsonResponseWriter = jsonResponseWriter;
+    }
+
     @ExceptionHandler(AuthenticationException.class)
-    protected ResponseEntity<Object> handleAuthenticationException(AuthenticationException ex) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("error", "Authentication failed");
-        body.put("message", ex.getMessage());
-        
-        return new ResponseEntity<>(body, HttpStatus.UNAUTHORIZED);
+    protected void handleAuthenticationException(AuthenticationException ex,
+                                                 HttpServletResponse response) throws IOException {
+        jsonResponseWriter.writeError(response, HttpServletResponse.SC_UNAUTHORIZED,
+                "Authentication failed", ex.getMessage());
     }
     
     @ExceptionHandler(OAuth2AuthenticationProcessingException.class)
-    protected ResponseEntity<Object> handleOAuth2ProcessingException(OAuth2AuthenticationProcessingException ex) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("error", "OAuth2 authentication failed");
-        body.put("message", ex.getMessage());
-        
-        return new ResponseEntity<>(body, HttpStatus.UNAUTHORIZED);
+    protected void handleOAuth2ProcessingException(OAuth2AuthenticationProcessingException ex,
+                                                   HttpServletResponse response) throws IOException {
+        jsonResponseWriter.writeError(response, HttpServletResponse.SC_UNAUTHORIZED,
+                "OAuth2 authentication failed", ex.getMessage());
     }
 }
@@ -0,0 +1,129 @@
+
+package ist.leaves.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ist.leaves.service.EmployeeIdentityCache;
+import ist.leaves.service.OAuth2UserLoadCoordinator;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Component
+public class AuthMetrics {
+
+    private static final String USERINFO_FETCH = "auth.userinfo.fetch";
+    private static final String USER_PROCESSING = "auth.user.processing";
+    private static final String REPOSITORY = "auth.repository";
+    private static final String TOKEN_GENERATION = "auth.token.generation";
+    private static final String SUCCESS_HANDLER = "auth.success.handler";
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+
+    // Success-path timers are resolved once; failure timers are looked up on demand
+    private final Timer userInfoFetchSuccess;
+    private final Timer newUserProcessingSuccess;
+    private final Timer existingUserProcessingSuccess;
+    private final Timer successHandlerSuccess;
+    private final Map<String, Timer> repositoryTimers = new HashMap<>();
+    private final Map<String, Timer> tokenTimers = new HashMap<>();
+
+    public AuthMetrics(MeterRegistry registry,
+                       EmployeeIdentityCache identityCache,
+                       OAuth2UserLoadCoordinator userLoadCoordinator) {
+        this.registry = registry;
+        this.userInfoFetchSuccess = timer(USERINFO_FETCH, "success", NONE, NONE);
+        this.newUserProcessingSuccess = timer(USER_PROCESSING, "success", NONE, "new");
+        this.existingUserProcessingSuccess = timer(USER_PROCESSING, "success", NONE, "existing");
+        this.successHandlerSuccess = timer(SUCCESS_HANDLER, "success", NONE, NONE);
+        
+        for (String operation : new String[] { "findByEmail", "findByMicrosoftId", "findById", "save",
+                "findAllById", "saveAllAndFlush" }) {
+            repositoryTimers.put(operation, taggedTimer(REPOSITORY, "operation", operation, "success", NONE));
+        }
+        for (String type : new String[] { "employee", "subject" }) {
+            tokenTimers.put(type, taggedTimer(TOKEN_GENERATION, "type", type, "success", NONE));
+        }
+        
+        FunctionCounter.builder("auth.identity.cache.requests", identityCache, EmployeeIdentityCache::hitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("auth.identity.cache.requests", identityCache, EmployeeIdentityCache::missCount)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("auth.identity.cache.size", identityCache, EmployeeIdentityCache::size)
+                .register(registry);
+        Gauge.builder("auth.userinfo.inflight", userLoadCoordinator, OAuth2UserLoadCoordinator::inFlightCount)
+                .register(registry);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void recordUserInfoFetch(Timer.Sample sample, Throwable failure) {
+        sample.stop(failure == null ? userInfoFetchSuccess : timer(USERINFO_FETCH, "failure", reason(failure), NONE));
+    }
+
+    public void recordUserProcessing(Timer.Sample sample, Throwable failure, boolean newUser) {
+        if (failure != null) {
+            sample.stop(timer(USER_PROCESSING, "failure", reason(failure), NONE));
+        } else {
+            sample.stop(newUser ? newUserProcessingSuccess : existingUserProcessingSuccess);
+        }
+    }
+
+    public void recordSuccessHandler(Timer.Sample sample, int status) {
+        sample.stop(status < 400 ? successHandlerSuccess : timer(SUCCESS_HANDLER, "failure", "http_" + status, NONE));
+    }
+
+    public void recordAdmissionRejected(String routeGroup) {
+        registry.counter("auth.admission.rejected", "group", routeGroup).increment();
+    }
+
+    public <T> T recordRepository(String operation, Supplier<T> call) {
+        return record(REPOSITORY, "operation", operation, repositoryTimers.get(operation), call);
+    }
+
+    public String recordTokenGeneration(String type, Supplier<String> call) {
+        return record(TOKEN_GENERATION, "type", type, tokenTimers.get(type), call);
+    }
+
+    private <T> T record(String name, String key, String value, Timer success, Supplier<T> call) {
+        Timer.Sample sample = start();
+        try {
+            T result = call.get();
+            sample.stop(success);
+            return result;
+        } catch (RuntimeException ex) {
+            sample.stop(taggedTimer(name, key, value, "failure", reason(ex)));
+            throw ex;
+        }
+    }
+
+    private Timer taggedTimer(String name, String key, String value, String outcome, String reason) {
+        return Timer.builder(name)
+                .tag(key, value)
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private Timer timer(String name, String outcome, String reason, String user) {
+        return Timer.builder(name)
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .tag("user", user)
+                .register(registry);
+    }
+
+    private static String reason(Throwable failure) {
+        // Exception types keep the tag cardinality bounded, unlike messages
+        return failure.getClass().getSimpleName();
+    }
+}
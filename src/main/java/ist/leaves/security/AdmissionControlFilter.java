@@ -0,0 +1,96 @@
+
+package ist.leaves.security;
+
+import ist.leaves.metrics.AuthMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+    private static final String AUTH_GROUP = "auth";
+    private static final String WRITE_GROUP = "write";
+
+    private final TokenBucketLimiter authLimiter;
+    private final TokenBucketLimiter writeLimiter;
+    private final JsonResponseWriter jsonResponseWriter;
+    private final AuthMetrics authMetrics;
+    private final boolean enabled;
+
+    public AdmissionControlFilter(JsonResponseWriter jsonResponseWriter,
+                                  AuthMetrics authMetrics,
+                                  @Value("${admission.enabled:true}") boolean enabled,
+                                  @Value("${admission.auth.capacity:300}") int authCapacity,
+                                  @Value("${admission.auth.refill-per-second:10}") double authRefillPerSecond,
+                                  @Value("${admission.write.capacity:30}") int writeCapacity,
+                                  @Value("${admission.write.refill-per-second:5}") double writeRefillPerSecond,
+                                  @Value("${admission.max-buckets:100000}") int maxBuckets) {
+        this.jsonResponseWriter = jsonResponseWriter;
+        this.authMetrics = authMetrics;
+        this.enabled = enabled;
+        this.authLimiter = new TokenBucketLimiter(authCapacity, authRefillPerSecond, maxBuckets);
+        this.writeLimiter = new TokenBucketLimiter(writeCapacity, writeRefillPerSecond, maxBuckets);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || routeGroup(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String group = routeGroup(request);
+        TokenBucketLimiter limiter = AUTH_GROUP.equals(group) ? authLimiter : writeLimiter;
+        
+        long waitNanos = limiter.tryAcquire(clientKey(request));
+        if (waitNanos > 0) {
+            // Rejected before any IdP call or repository work happens
+            long retryAfterSeconds = TokenBucketLimiter.retryAfterSeconds(waitNanos);
+            logger.debug("Admission denied for {} on {} route group", clientKey(request), group);
+            authMetrics.recordAdmissionRejected(group);
+            jsonResponseWriter.writeTooManyRequests(response, retryAfterSeconds);
+            return;
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+
+    private static String routeGroup(HttpServletRequest request) {
+        String path = request.getServletPath();
+        if (path.startsWith("/login") || path.startsWith("/oauth2/") || path.startsWith("/api/auth/")) {
+            return AUTH_GROUP;
+        }
+        switch (request.getMethod()) {
+            case "POST":
+            case "PUT":
+            case "PATCH":
+            case "DELETE":
+                return WRITE_GROUP;
+            default:
+                return null;
+        }
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        // Write routes carry a bearer JWT, so each employee gets their own bucket. Login and refresh requests
+        // are always anonymous and share the client IP's bucket (see server.tomcat.remoteip.internal-proxies)
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomOAuth2User) {
+            return "employee:" + ((CustomOAuth2User) authentication.getPrincipal()).getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,35 @@
+
+package ist.leaves.security;
+
+import java.util.Map;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import ist.leaves.entity.Employee;
+
+public class CustomOidcUser extends CustomOAuth2User implements OidcUser {
+
+    private final OidcIdToken idToken;
+    private final OidcUserInfo userInfo;
+
+    public CustomOidcUser(Employee employee, Map<String, Object> attributes, OidcIdToken idToken) {
+        super(employee, attributes);
+        this.idToken = idToken;
+        this.userInfo = new OidcUserInfo(attributes);
+    }
+
+    @Override
+    public Map<String, Object> getClaims() {
+        return getAttributes();
+    }
+
+    @Override
+    public OidcUserInfo getUserInfo() {
+        return userInfo;
+    }
+
+    @Override
+    public OidcIdToken getIdToken() {
+        return idToken;
+    }
+}
@@ -0,0 +1,102 @@
+
+package ist.leaves.security;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class JsonResponseWriter {
+
+    public static final String AUTHENTICATION_FAILED = "Authentication failed";
+    public static final String NO_AUTHENTICATION_DATA = "No authentication data found";
+    public static final String NULL_PRINCIPAL = "OAuth2User principal is null";
+    public static final String EMAIL_NOT_FOUND = "Could not extract email from user profile";
+    public static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private final JsonFactory jsonFactory;
+
+    // Bodies that never change are encoded once and copied straight to the response
+    private final Map<String, byte[]> fixedAuthenticationErrors = new HashMap<>();
+    private final byte[] tooManyRequestsBody;
+
+    public JsonResponseWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        for (String message : List.of(NO_AUTHENTICATION_DATA, NULL_PRINCIPAL, EMAIL_NOT_FOUND)) {
+            fixedAuthenticationErrors.put(message, encodeError(AUTHENTICATION_FAILED, message));
+        }
+        this.tooManyRequestsBody = encodeError("Too many requests", "Rate limit exceeded, please retry later");
+    }
+
+    public void writeTokens(HttpServletResponse response, String token, String refreshToken) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeStringField("token", token);
+            if (refreshToken != null) {
+                generator.writeStringField("refreshToken", refreshToken);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    public void writeError(HttpServletResponse response, int status, String error, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        
+        byte[] fixedBody = AUTHENTICATION_FAILED.equals(error) ? fixedAuthenticationErrors.get(message) : null;
+        if (fixedBody != null) {
+            response.setContentLength(fixedBody.length);
+            response.getOutputStream().write(fixedBody);
+            return;
+        }
+        
+        try (JsonGenerator generator = createGenerator(response.getOutputStream())) {
+            writeErrorObject(generator, error, message);
+        }
+    }
+
+    public void writeTooManyRequests(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(SC_TOO_MANY_REQUESTS);
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(tooManyRequestsBody.length);
+        response.getOutputStream().write(tooManyRequestsBody);
+    }
+
+    private byte[] encodeError(String error, String message) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator generator = createGenerator(body)) {
+            writeErrorObject(generator, error, message);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return body.toByteArray();
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        // Generators stream into the servlet output and recycle their buffers through the shared factory;
+        // the container owns the stream, so closing the generator must not close it
+        JsonGenerator generator = jsonFactory.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private static void writeErrorObject(JsonGenerator generator, String error, String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("error", error);
+        generator.writeStringField("message", message);
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,131 @@
+
+package ist.leaves.security;
+
+import ist.leaves.cache.ExpiringCache;
+import ist.leaves.entity.Employee;
+import ist.leaves.entity.Role;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+
+@Component
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final ExpiringCache<String, OAuth2User> verifiedTokens;
+
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
+                                   @Value("${jwt.cache.max-size:10000}") int cacheMaxSize) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.verifiedTokens = new ExpiringCache<>(cacheMaxSize);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        
+        if (header != null && header.startsWith(BEARER_PREFIX)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Authentication authentication = authenticate(header.substring(BEARER_PREFIX.length()));
+            if (authentication != null) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            }
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+
+    private Authentication authenticate(String token) {
+        // Tokens already verified are served from the cache, keyed by digest so raw bearer tokens are never retained
+        String digest = digest(token);
+        OAuth2User principal = verifiedTokens.get(digest);
+        if (principal == null) {
+            principal = verify(token, digest);
+            if (principal == null) {
+                return null;
+            }
+        }
+        
+        // Authentication tokens are mutable, so every request gets its own
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    private OAuth2User verify(String token, String digest) {
+        Map<String, Object> claims = jwtTokenProvider.validateToken(token);
+        if (claims == null) {
+            return null;
+        }
+        
+        try {
+            OAuth2User principal = buildPrincipal(claims);
+            long expiresAt = ((Number) claims.get("exp")).longValue() * 1000;
+            verifiedTokens.put(digest, principal, expiresAt);
+            return principal;
+        } catch (RuntimeException ex) {
+            logger.debug("Could not build principal from JWT claims: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private OAuth2User buildPrincipal(Map<String, Object> claims) {
+        String email = (String) claims.get("sub");
+        Object employeeId = claims.get("employeeId");
+        Object role = claims.get("role");
+        
+        // Tokens minted by generateToken(String) only carry the subject
+        if (employeeId == null || role == null) {
+            return new DefaultOAuth2User(
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + Role.USER.name())),
+                    Map.of("email", email),
+                    "email");
+        }
+        
+        // Rebuild the employee from the claims instead of loading it from the database
+        Employee employee = new Employee();
+        employee.setId(((Number) employeeId).longValue());
+        employee.setEmail(claims.containsKey("email") ? (String) claims.get("email") : email);
+        employee.setName((String) claims.get("name"));
+        employee.setRole(Role.valueOf((String) role));
+        employee.setActive(true);
+        
+        return new CustomOAuth2User(employee, Collections.unmodifiableMap(claims));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ENCODER.encodeToString(sha256.digest(token.getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
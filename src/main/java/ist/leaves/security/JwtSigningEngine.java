@@ -0,0 +1,209 @@
+
+package ist.leaves.security;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import ist.leaves.entity.Role;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+
+public class JwtSigningEngine {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final JsonStringEncoder JSON_ENCODER = JsonStringEncoder.getInstance();
+
+    // Header never changes, so it is encoded once: {"alg":"HS256"}
+    private static final byte[] ENCODED_HEADER = ENCODER.encode(ascii("{\"alg\":\"HS256\"}"));
+
+    private static final byte[] SUB_CLAIM = ascii("\"sub\":\"");
+    private static final byte[] EMAIL_CLAIM = ascii(",\"email\":\"");
+    private static final byte[] NAME_CLAIM = ascii(",\"name\":\"");
+
+    private final SecretKeySpec key;
+    private final Map<Role, byte[]> roleClaims = new EnumMap<>(Role.class);
+    private final ThreadLocal<SigningContext> contexts;
+
+    public JwtSigningEngine(String secret) {
+        this.key = new SecretKeySpec(decodeSecret(secret), MAC_ALGORITHM);
+
+        // Pre-encode the role fragment of the payload for every role
+        for (Role role : Role.values()) {
+            roleClaims.put(role, ascii(",\"role\":\"" + role.name() + "\",\"roles\":[\"USER\",\"" + role.name() + "\"]"));
+        }
+
+        // Fail at startup rather than on the first login if the key is unusable
+        newMac();
+        this.contexts = ThreadLocal.withInitial(() -> new SigningContext(newMac()));
+    }
+
+    public String sign(String subject, long issuedAtMillis, long expiresAtMillis) {
+        SigningContext context = contexts.get();
+        PayloadBuffer payload = context.payload;
+        payload.reset();
+
+        payload.writeAscii("{");
+        writeStringClaim(payload, SUB_CLAIM, subject);
+        writeTimestamps(payload, issuedAtMillis, expiresAtMillis);
+        payload.writeAscii("}");
+
+        return encode(context);
+    }
+
+    public String sign(String email, String name, Long employeeId, Role role,
+                       long issuedAtMillis, long expiresAtMillis) {
+        SigningContext context = contexts.get();
+        PayloadBuffer payload = context.payload;
+        payload.reset();
+
+        payload.writeAscii("{");
+        writeStringClaim(payload, SUB_CLAIM, email);
+        writeStringClaim(payload, EMAIL_CLAIM, email);
+        writeStringClaim(payload, NAME_CLAIM, name);
+        if (employeeId != null) {
+            payload.writeAscii(",\"employeeId\":");
+            payload.writeAscii(Long.toString(employeeId));
+        }
+        payload.writeBytes(roleClaims.get(role));
+        writeTimestamps(payload, issuedAtMillis, expiresAtMillis);
+        payload.writeAscii("}");
+
+        return encode(context);
+    }
+
+    // Returns the decoded payload if the header and HMAC match, null otherwise; expiry is left to the caller
+    public byte[] verify(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot != ENCODED_HEADER.length || lastDot == firstDot) {
+            return null;
+        }
+
+        // Tokens are ASCII, anything else simply fails the comparisons below
+        byte[] bytes = token.getBytes(StandardCharsets.ISO_8859_1);
+        if (!Arrays.equals(bytes, 0, firstDot, ENCODED_HEADER, 0, ENCODED_HEADER.length)) {
+            return null;
+        }
+
+        // Compared in encoded form so only the canonical encoding of the signature is accepted
+        Mac mac = contexts.get().mac;
+        mac.update(bytes, 0, lastDot);
+        byte[] expectedSignature = ENCODER.encode(mac.doFinal());
+        if (!MessageDigest.isEqual(expectedSignature, Arrays.copyOfRange(bytes, lastDot + 1, bytes.length))) {
+            return null;
+        }
+
+        try {
+            return DECODER.decode(token.substring(firstDot + 1, lastDot));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private String encode(SigningContext context) {
+        byte[] encodedPayload = ENCODER.encode(context.payload.toByteArray());
+
+        Mac mac = context.mac;
+        mac.update(ENCODED_HEADER);
+        mac.update((byte) '.');
+        mac.update(encodedPayload);
+        byte[] encodedSignature = ENCODER.encode(mac.doFinal());
+
+        byte[] token = new byte[ENCODED_HEADER.length + encodedPayload.length + encodedSignature.length + 2];
+        int offset = 0;
+        System.arraycopy(ENCODED_HEADER, 0, token, offset, ENCODED_HEADER.length);
+        offset += ENCODED_HEADER.length;
+        token[offset++] = '.';
+        System.arraycopy(encodedPayload, 0, token, offset, encodedPayload.length);
+        offset += encodedPayload.length;
+        token[offset++] = '.';
+        System.arraycopy(encodedSignature, 0, token, offset, encodedSignature.length);
+
+        return new String(token, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void writeStringClaim(PayloadBuffer payload, byte[] claimPrefix, String value) {
+        // Null claims are left out, matching how jjwt treated null map values
+        if (value == null) {
+            return;
+        }
+        payload.writeBytes(claimPrefix);
+        payload.writeBytes(JSON_ENCODER.quoteAsUTF8(value));
+        payload.writeAscii("\"");
+    }
+
+    private static void writeTimestamps(PayloadBuffer payload, long issuedAtMillis, long expiresAtMillis) {
+        payload.writeAscii(",\"iat\":");
+        payload.writeAscii(Long.toString(issuedAtMillis / 1000));
+        payload.writeAscii(",\"exp\":");
+        payload.writeAscii(Long.toString(expiresAtMillis / 1000));
+    }
+
+    // The secret is Base64 in either alphabet; HS256 needs a key of at least 256 bits (RFC 7518)
+    private static byte[] decodeSecret(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalStateException("JWT secret is not configured");
+        }
+        byte[] keyBytes;
+        try {
+            keyBytes = Base64.getDecoder().decode(secret);
+        } catch (IllegalArgumentException ex) {
+            try {
+                keyBytes = DECODER.decode(secret);
+            } catch (IllegalArgumentException urlEx) {
+                throw new IllegalStateException("JWT secret must be Base64 encoded", urlEx);
+            }
+        }
+        if (keyBytes.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("JWT secret must decode to at least 256 bits, got "
+                    + keyBytes.length * 8);
+        }
+        return keyBytes;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Unable to initialise JWT signing key", ex);
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class SigningContext {
+        private final Mac mac;
+        private final PayloadBuffer payload = new PayloadBuffer();
+
+        private SigningContext(Mac mac) {
+            this.mac = mac;
+        }
+    }
+
+    private static final class PayloadBuffer extends ByteArrayOutputStream {
+
+        private PayloadBuffer() {
+            super(256);
+        }
+
+        private void writeAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                write(value.charAt(i));
+            }
+        }
+    }
+}
@@ -1,49 +1,84 @@
 
 package ist.leaves.security;
 
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ist.leaves.entity.Role;
+import ist.leaves.metrics.AuthMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Date;
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Map;
 
 @Component
 public class JwtTokenProvider {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<>() {};
+
     @Value("${jwt.secret:default-secret-key-should-be-changed}")
     private String secretKey;
     
     @Value("${jwt.expiration:3600000}")
     private long validityInMilliseconds;
 
+    private final ObjectMapper objectMapper;
+    private final AuthMetrics authMetrics;
+    private JwtSigningEngine signingEngine;
+
+    public JwtTokenProvider(ObjectMapper objectMapper, AuthMetrics authMetrics) {
+        this.objectMapper = objectMapper;
+        this.authMetrics = authMetrics;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Derive the signing key and claim templates once instead of on every token
+        signingEngine = new JwtSigningEngine(secretKey);
+    }
+
     public String generateToken(String email) {
-        return Jwts.builder()
-                .setSubject(email)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + validityInMilliseconds))
-                .signWith(SignatureAlgorithm.HS256, secretKey)
-                .compact();
+        return authMetrics.recordTokenGeneration("subject", () -> {
+            long now = System.currentTimeMillis();
+            return signingEngine.sign(email, now, now + validityInMilliseconds);
+        });
     }
     
     public String generateToken(CustomOAuth2User user) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("email", user.getEmail());
-        claims.put("name", user.getName());
-        claims.put("role", user.getRole());
-        claims.put("employeeId", user.getId());
-        
-        // Add roles as a list for frontend processing
-        claims.put("roles", new String[] { "USER", user.getRole().name() });
+        return generateToken(user.getEmail(), user.getName(), user.getId(), user.getRole());
+    }
+    
+    public String generateToken(String email, String name, Long employeeId, Role role) {
+        return authMetrics.recordTokenGeneration("employee", () -> {
+            long now = System.currentTimeMillis();
+            
+            // Claims carry email, name, role, employeeId and a roles list for frontend processing
+            return signingEngine.sign(email, name, employeeId, role, now, now + validityInMilliseconds);
+        });
+    }
+
+    public Map<String, Object> validateToken(String token) {
+        byte[] payload = signingEngine.verify(token);
+        if (payload == null) {
+            return null;
+        }
         
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(user.getEmail())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + validityInMilliseconds))
-                .signWith(SignatureAlgorithm.HS256, secretKey)
-                .compact();
+        try {
+            Map<String, Object> claims = objectMapper.readValue(payload, CLAIMS_TYPE);
+            Object expiration = claims.get("exp");
+            if (!(expiration instanceof Number)
+                    || ((Number) expiration).longValue() * 1000 <= System.currentTimeMillis()) {
+                logger.debug("Rejected expired JWT for subject: {}", claims.get("sub"));
+                return null;
+            }
+            return claims;
+        } catch (IOException ex) {
+            logger.debug("Rejected JWT with unreadable claims: {}", ex.getMessage());
+            return null;
+        }
     }
 }
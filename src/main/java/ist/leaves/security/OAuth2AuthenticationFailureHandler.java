@@ -1,7 +1,6 @@
 
 package ist.leaves.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -12,16 +11,15 @@ import org.springframework.security.web.authentication.SimpleUrlAuthenticationFa
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Map;
 
 @Component
 public class OAuth2AuthenticationFailureHandler extends SimpleUrlAuthenticationFailureHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(OAuth2AuthenticationFailureHandler.class);
-    private final ObjectMapper objectMapper;
+    private final JsonResponseWriter jsonResponseWriter;
 
-    public OAuth2AuthenticationFailureHandler(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public OAuth2AuthenticationFailureHandler(JsonResponseWriter jsonResponseWriter) {
+        this.jsonResponseWriter = jsonResponseWriter;
     }
 
     @Override
@@ -31,10 +29,7 @@ public class OAuth2AuthenticationFailureHandler extends SimpleUrlAuthenticationF
         logger.error("OAuth2 authentication failure: {}", exception.getMessage());
         
         // Return JSON error response instead of redirect to login page
-        response.setContentType("application/json");
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        response.getWriter().write(objectMapper.writeValueAsString(
-            Map.of("error", "Authentication failed", "message", exception.getMessage())
-        ));
+        jsonResponseWriter.writeError(response, HttpServletResponse.SC_UNAUTHORIZED,
+                JsonResponseWriter.AUTHENTICATION_FAILED, exception.getMessage());
     }
 }
@@ -1,7 +1,8 @@
 
 package ist.leaves.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import ist.leaves.metrics.AuthMetrics;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -14,7 +15,6 @@ import org.springframework.security.web.authentication.SimpleUrlAuthenticationSu
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 
 @Component
@@ -22,19 +22,33 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
 
     private static final Logger logger = LoggerFactory.getLogger(OAuth2AuthenticationSuccessHandler.class);
     private final JwtTokenProvider jwtTokenProvider;
-    private final ObjectMapper objectMapper;
+    private final RefreshTokenStore refreshTokenStore;
+    private final JsonResponseWriter jsonResponseWriter;
+    private final AuthMetrics authMetrics;
 
-    public OAuth2AuthenticationSuccessHandler(JwtTokenProvider jwtTokenProvider, ObjectMapper objectMapper) {
+    public OAuth2AuthenticationSuccessHandler(JwtTokenProvider jwtTokenProvider,
+                                              RefreshTokenStore refreshTokenStore,
+                                              JsonResponseWriter jsonResponseWriter,
+                                              AuthMetrics authMetrics) {
         this.jwtTokenProvider = jwtTokenProvider;
-        this.objectMapper = objectMapper;
+        this.refreshTokenStore = refreshTokenStore;
+        this.jsonResponseWriter = jsonResponseWriter;
+        this.authMetrics = authMetrics;
     }
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
                                       Authentication authentication) throws IOException, ServletException {
-        
-        // Set response type to JSON
-        response.setContentType("application/json");
+        Timer.Sample sample = authMetrics.start();
+        try {
+            writeTokenResponse(response, authentication);
+        } finally {
+            authMetrics.recordSuccessHandler(sample, response.getStatus());
+        }
+    }
+
+    private void writeTokenResponse(HttpServletResponse response,
+                                    Authentication authentication) throws IOException {
         response.setStatus(HttpServletResponse.SC_OK);
         
         try {
@@ -42,11 +56,8 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
             
             if (authentication == null) {
                 logger.error("Authentication is null");
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.getWriter().write(objectMapper.writeValueAsString(Map.of(
-                    "error", "Authentication failed", 
-                    "message", "No authentication data found"
-                )));
+                jsonResponseWriter.writeError(response, HttpServletResponse.SC_UNAUTHORIZED,
+                        JsonResponseWriter.AUTHENTICATION_FAILED, JsonResponseWriter.NO_AUTHENTICATION_DATA);
                 return;
             }
             
@@ -59,11 +70,8 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
                 
                 if (oauth2User == null) {
                     logger.error("OAuth2User principal is null");
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.getWriter().write(objectMapper.writeValueAsString(Map.of(
-                        "error", "Authentication failed", 
-                        "message", "OAuth2User principal is null"
-                    )));
+                    jsonResponseWriter.writeError(response, HttpServletResponse.SC_UNAUTHORIZED,
+                            JsonResponseWriter.AUTHENTICATION_FAILED, JsonResponseWriter.NULL_PRINCIPAL);
                     return;
                 }
                 
@@ -79,42 +87,36 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
                 
                 if (email == null) {
                     logger.error("Could not extract email from OAuth2User attributes");
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.getWriter().write(objectMapper.writeValueAsString(Map.of(
-                        "error", "Authentication failed", 
-                        "message", "Could not extract email from user profile"
-                    )));
+                    jsonResponseWriter.writeError(response, HttpServletResponse.SC_UNAUTHORIZED,
+                            JsonResponseWriter.AUTHENTICATION_FAILED, JsonResponseWriter.EMAIL_NOT_FOUND);
                     return;
                 }
                 
                 // Generate token based on available data
                 String token;
+                String refreshToken = null;
                 if (oauth2User instanceof CustomOAuth2User) {
                     CustomOAuth2User customUser = (CustomOAuth2User) oauth2User;
                     token = jwtTokenProvider.generateToken(customUser);
+                    refreshToken = refreshTokenStore.issue(customUser.getId());
                     logger.info("Generated token for CustomOAuth2User: {}", customUser.getEmail());
                 } else {
                     token = jwtTokenProvider.generateToken(email);
                     logger.info("Generated token for email: {}", email);
                 }
                 
-                Map<String, String> tokenResponse = new HashMap<>();
-                tokenResponse.put("token", token);
-                response.getWriter().write(objectMapper.writeValueAsString(tokenResponse));
+                jsonResponseWriter.writeTokens(response, token, refreshToken);
             } else {
                 logger.warn("Authentication is not an instance of OAuth2AuthenticationToken: {}", 
                     authentication.getClass().getName());
                 
                 String token = jwtTokenProvider.generateToken(authentication.getName());
-                response.getWriter().write(objectMapper.writeValueAsString(Map.of("token", token)));
+                jsonResponseWriter.writeTokens(response, token, null);
             }
         } catch (Exception ex) {
             logger.error("Error in authentication success handler", ex);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            response.getWriter().write(objectMapper.writeValueAsString(Map.of(
-                "error", "Authentication failed",
-                "message", ex.getMessage()
-            )));
+            jsonResponseWriter.writeError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                    JsonResponseWriter.AUTHENTICATION_FAILED, ex.getMessage());
         }
     }
 }
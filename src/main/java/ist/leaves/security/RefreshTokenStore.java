@@ -0,0 +1,250 @@
+
+package ist.leaves.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class RefreshTokenStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenStore.class);
+    private static final int TOKEN_BYTES = 32;
+    private static final long NO_FAMILY = 0L;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final long validityInMilliseconds;
+    private final long sweepIntervalInMilliseconds;
+    private final int maxFamiliesPerEmployee;
+    private final int maxTokens;
+
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong familySequence = new AtomicLong();
+
+    // Tokens are stored by their SHA-256 digest, never in clear
+    private final Map<String, RefreshToken> tokens = new ConcurrentHashMap<>();
+
+    // Latest live token of each rotation family, so a replayed token can revoke it
+    private final Map<Long, String> familyHeads = new ConcurrentHashMap<>();
+
+    // Live families per employee, oldest first; bounds how many sessions one employee can hold
+    private final Map<Long, Deque<Long>> employeeFamilies = new ConcurrentHashMap<>();
+
+    // Every token has the same lifetime, so issue order is expiry order and the sweep only touches expired entries
+    private final Queue<RefreshToken> expiryIndex = new ConcurrentLinkedQueue<>();
+    private final Object evictionLock = new Object();
+
+    private ScheduledExecutorService sweeper;
+
+    public RefreshTokenStore(@Value("${jwt.refresh-expiration:1209600000}") long validityInMilliseconds,
+                             @Value("${jwt.refresh-sweep-interval:60000}") long sweepIntervalInMilliseconds,
+                             @Value("${jwt.refresh-max-sessions-per-employee:5}") int maxFamiliesPerEmployee,
+                             @Value("${jwt.refresh-max-tokens:100000}") int maxTokens) {
+        if (maxFamiliesPerEmployee <= 0 || maxTokens <= 0) {
+            throw new IllegalArgumentException("Refresh token limits must be positive");
+        }
+        this.validityInMilliseconds = validityInMilliseconds;
+        this.sweepIntervalInMilliseconds = sweepIntervalInMilliseconds;
+        this.maxFamiliesPerEmployee = maxFamiliesPerEmployee;
+        this.maxTokens = maxTokens;
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "refresh-token-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepExpired, sweepIntervalInMilliseconds,
+                sweepIntervalInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    public String issue(Long employeeId) {
+        long familyId = familySequence.incrementAndGet();
+        String token = store(familyId, employeeId);
+        
+        // A new login beyond the per-employee limit ends that employee's oldest session
+        long[] evicted = { NO_FAMILY };
+        employeeFamilies.compute(employeeId, (id, families) -> {
+            Deque<Long> updated = families != null ? families : new ArrayDeque<>();
+            updated.addLast(familyId);
+            if (updated.size() > maxFamiliesPerEmployee) {
+                evicted[0] = updated.pollFirst();
+            }
+            return updated;
+        });
+        if (evicted[0] != NO_FAMILY) {
+            revokeFamily(evicted[0]);
+        }
+        return token;
+    }
+
+    public Rotation rotate(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return null;
+        }
+        
+        RefreshToken current = tokens.get(digest(refreshToken));
+        if (current == null || current.expiresAtMillis <= System.currentTimeMillis()) {
+            return null;
+        }
+        
+        if (!current.used.compareAndSet(false, true)) {
+            // A rotated token came back: assume it leaked and end the whole session
+            logger.warn("Refresh token reuse detected for employee: {}", current.employeeId);
+            revokeFamily(current.familyId);
+            removeFamily(current.employeeId, current.familyId);
+            return null;
+        }
+        
+        return new Rotation(store(current.familyId, current.employeeId), current.employeeId);
+    }
+
+    // Ends every session of an employee, e.g. after a role change or deactivation
+    public void revokeEmployee(Long employeeId) {
+        Deque<Long> families = employeeFamilies.remove(employeeId);
+        if (families == null) {
+            return;
+        }
+        for (Long familyId : families) {
+            revokeFamily(familyId);
+        }
+        logger.info("Revoked refresh tokens for employee: {}", employeeId);
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    void sweepExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        synchronized (evictionLock) {
+            RefreshToken oldest;
+            while ((oldest = expiryIndex.peek()) != null && oldest.expiresAtMillis <= now) {
+                forget(expiryIndex.poll());
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.debug("Swept {} expired refresh tokens", removed);
+        }
+    }
+
+    private String store(long familyId, Long employeeId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = ENCODER.encodeToString(bytes);
+        
+        RefreshToken entry = new RefreshToken(digest(token), familyId, employeeId,
+                System.currentTimeMillis() + validityInMilliseconds);
+        tokens.put(entry.digest, entry);
+        familyHeads.put(familyId, entry.digest);
+        expiryIndex.add(entry);
+        
+        // Hard cap on memory: past it the oldest tokens go first, live or not
+        if (tokens.size() > maxTokens) {
+            synchronized (evictionLock) {
+                RefreshToken evicted;
+                while (tokens.size() > maxTokens && (evicted = expiryIndex.poll()) != null) {
+                    forget(evicted);
+                }
+            }
+        }
+        return token;
+    }
+
+    private void forget(RefreshToken token) {
+        tokens.remove(token.digest, token);
+        if (familyHeads.remove(token.familyId, token.digest)) {
+            removeFamily(token.employeeId, token.familyId);
+        }
+    }
+
+    private void removeFamily(Long employeeId, long familyId) {
+        employeeFamilies.computeIfPresent(employeeId, (id, families) -> {
+            families.remove(familyId);
+            return families.isEmpty() ? null : families;
+        });
+    }
+
+    private void revokeFamily(long familyId) {
+        String head = familyHeads.remove(familyId);
+        if (head != null) {
+            RefreshToken live = tokens.get(head);
+            if (live != null) {
+                live.used.set(true);
+            }
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ENCODER.encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    public static final class Rotation {
+        private final String refreshToken;
+        private final Long employeeId;
+
+        private Rotation(String refreshToken, Long employeeId) {
+            this.refreshToken = refreshToken;
+            this.employeeId = employeeId;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+
+        public Long getEmployeeId() {
+            return employeeId;
+        }
+    }
+
+    private static final class RefreshToken {
+        private final String digest;
+        private final long familyId;
+        private final Long employeeId;
+        private final long expiresAtMillis;
+        private final AtomicBoolean used = new AtomicBoolean();
+
+        private RefreshToken(String digest, long familyId, Long employeeId, long expiresAtMillis) {
+            this.digest = digest;
+            this.familyId = familyId;
+            this.employeeId = employeeId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
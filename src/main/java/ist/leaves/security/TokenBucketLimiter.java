@@ -0,0 +1,95 @@
+
+package ist.leaves.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public class TokenBucketLimiter {
+
+    private static final long NOT_LIMITED = 0L;
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final int maxBuckets;
+    private final LongSupplier nanoClock;
+
+    // Each bucket is a single "theoretical arrival time" (GCRA), so admission is one CAS with no locks
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean makingRoom = new AtomicBoolean();
+
+    public TokenBucketLimiter(int capacity, double refillPerSecond, int maxBuckets) {
+        this(capacity, refillPerSecond, maxBuckets, System::nanoTime);
+    }
+
+    TokenBucketLimiter(int capacity, double refillPerSecond, int maxBuckets, LongSupplier nanoClock) {
+        if (capacity <= 0 || refillPerSecond <= 0 || maxBuckets <= 0) {
+            throw new IllegalArgumentException("Bucket capacity, refill rate and bucket limit must be positive");
+        }
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.maxBuckets = maxBuckets;
+        this.nanoClock = nanoClock;
+    }
+
+    // Returns 0 if the request is admitted, otherwise the nanoseconds until a token is available
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                makeRoom(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + emissionIntervalNanos;
+            long wait = next - burstNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return NOT_LIMITED;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    // Whole seconds for a Retry-After header, rounded up so a client retrying on time is admitted
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    private void makeRoom(long now) {
+        // One thread sweeps at a time; the others go ahead rather than all rescanning the map
+        if (!makingRoom.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // A bucket whose arrival time has passed is full again and carries no state worth keeping
+            buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+            if (buckets.size() < maxBuckets) {
+                return;
+            }
+            
+            // Still full of active buckets: drop a slice so the next new keys don't rescan the whole map
+            int toEvict = buckets.size() - maxBuckets + Math.max(1, maxBuckets / 16);
+            Iterator<AtomicLong> values = buckets.values().iterator();
+            while (toEvict-- > 0 && values.hasNext()) {
+                values.next();
+                values.remove();
+            }
+        } finally {
+            makingRoom.set(false);
+        }
+    }
+}
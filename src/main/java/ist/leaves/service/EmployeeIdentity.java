@@ -0,0 +1,77 @@
+
+package ist.leaves.service;
+
+import ist.leaves.entity.Employee;
+import ist.leaves.entity.Role;
+
+public final class EmployeeIdentity {
+
+    private final Long id;
+    private final String email;
+    private final String microsoftId;
+    private final String name;
+    private final String avatarUrl;
+    private final Role role;
+    private final boolean active;
+
+    private EmployeeIdentity(Long id, String email, String microsoftId, String name, String avatarUrl,
+                             Role role, boolean active) {
+        this.id = id;
+        this.email = email;
+        this.microsoftId = microsoftId;
+        this.name = name;
+        this.avatarUrl = avatarUrl;
+        this.role = role;
+        this.active = active;
+    }
+
+    public static EmployeeIdentity from(Employee employee) {
+        return new EmployeeIdentity(employee.getId(), employee.getEmail(), employee.getMicrosoftId(),
+                employee.getName(), employee.getAvatarUrl(), employee.getRole(), employee.isActive());
+    }
+
+    public EmployeeIdentity withProfile(String name, String avatarUrl) {
+        return new EmployeeIdentity(id, email, microsoftId, name, avatarUrl, role, active);
+    }
+
+    // Detached copy for the principal; never saved, writes always go through a freshly loaded entity
+    public Employee toEmployee() {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setEmail(email);
+        employee.setMicrosoftId(microsoftId);
+        employee.setName(name);
+        employee.setAvatarUrl(avatarUrl);
+        employee.setRole(role);
+        employee.setActive(active);
+        return employee;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getMicrosoftId() {
+        return microsoftId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
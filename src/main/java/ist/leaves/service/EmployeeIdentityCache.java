@@ -0,0 +1,95 @@
+
+package ist.leaves.service;
+
+import ist.leaves.cache.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class EmployeeIdentityCache {
+
+    private static final String ID_KEY = "id:";
+    private static final String EMAIL_KEY = "email:";
+    private static final String MICROSOFT_ID_KEY = "microsoftId:";
+
+    private final ExpiringCache<String, EmployeeIdentity> cache;
+    private final long ttlInMilliseconds;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EmployeeIdentityCache(@Value("${employee.identity-cache.max-size:10000}") int maxSize,
+                                 @Value("${employee.identity-cache.ttl:300000}") long ttlInMilliseconds) {
+        this.cache = new ExpiringCache<>(maxSize);
+        this.ttlInMilliseconds = ttlInMilliseconds;
+    }
+
+    // One lookup per login: counted as a single hit or miss however many keys were tried
+    public EmployeeIdentity find(String email, String microsoftId) {
+        EmployeeIdentity identity = email == null ? null : cache.get(EMAIL_KEY + email);
+        if (identity == null && !isBlank(microsoftId)) {
+            identity = cache.get(MICROSOFT_ID_KEY + microsoftId);
+        }
+        if (identity == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return identity;
+    }
+
+    public void put(EmployeeIdentity identity) {
+        long expiresAt = System.currentTimeMillis() + ttlInMilliseconds;
+        if (identity.getId() != null) {
+            cache.put(ID_KEY + identity.getId(), identity, expiresAt);
+        }
+        if (identity.getEmail() != null) {
+            cache.put(EMAIL_KEY + identity.getEmail(), identity, expiresAt);
+        }
+        if (!isBlank(identity.getMicrosoftId())) {
+            cache.put(MICROSOFT_ID_KEY + identity.getMicrosoftId(), identity, expiresAt);
+        }
+    }
+
+    public void invalidate(String email, String microsoftId) {
+        if (email != null) {
+            cache.invalidate(EMAIL_KEY + email);
+        }
+        if (!isBlank(microsoftId)) {
+            cache.invalidate(MICROSOFT_ID_KEY + microsoftId);
+        }
+    }
+
+    // Drops every key of an employee, including email or Microsoft ID values that have since changed
+    public void evict(Long employeeId) {
+        if (employeeId == null) {
+            return;
+        }
+        EmployeeIdentity cached = cache.get(ID_KEY + employeeId);
+        cache.invalidate(ID_KEY + employeeId);
+        if (cached != null) {
+            invalidate(cached.getEmail(), cached.getMicrosoftId());
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+}
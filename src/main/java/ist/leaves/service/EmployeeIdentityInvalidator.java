@@ -0,0 +1,75 @@
+
+package ist.leaves.service;
+
+import ist.leaves.entity.Employee;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// Role and active changes can come from anywhere that saves an Employee, so evict on every committed write
+@Component
+public class EmployeeIdentityInvalidator implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeIdentityInvalidator.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final EmployeeIdentityCache identityCache;
+
+    public EmployeeIdentityInvalidator(EntityManagerFactory entityManagerFactory,
+                                       EmployeeIdentityCache identityCache) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.identityCache = identityCache;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        evict(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was written, so the cached identity is still accurate
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        evict(event.getEntity());
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was deleted, so the cached identity is still accurate
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Employee.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    private void evict(Object entity) {
+        if (entity instanceof Employee) {
+            Long employeeId = ((Employee) entity).getId();
+            logger.debug("Evicting cached identity for employee: {}", employeeId);
+            identityCache.evict(employeeId);
+        }
+    }
+}
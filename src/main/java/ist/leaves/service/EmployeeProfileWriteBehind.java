@@ -0,0 +1,174 @@
+
+package ist.leaves.service;
+
+import ist.leaves.entity.Employee;
+import ist.leaves.metrics.AuthMetrics;
+import ist.leaves.repository.EmployeeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class EmployeeProfileWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeProfileWriteBehind.class);
+
+    private final EmployeeRepository employeeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AuthMetrics authMetrics;
+    private final boolean enabled;
+    private final long flushIntervalInMilliseconds;
+    private final int batchSize;
+
+    // Latest pending profile per employee; older updates for the same employee are coalesced away
+    private final Map<Long, ProfileUpdate> pending = new ConcurrentHashMap<>();
+
+    // Held for a whole flush, so discard() returns only once no older profile can still be written
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ScheduledExecutorService scheduler;
+
+    public EmployeeProfileWriteBehind(EmployeeRepository employeeRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      AuthMetrics authMetrics,
+                                      @Value("${employee.profile-write-behind.enabled:false}") boolean enabled,
+                                      @Value("${employee.profile-write-behind.flush-interval:500}") long flushIntervalInMilliseconds,
+                                      @Value("${employee.profile-write-behind.batch-size:100}") int batchSize) {
+        this.employeeRepository = employeeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.authMetrics = authMetrics;
+        this.enabled = enabled;
+        this.flushIntervalInMilliseconds = flushIntervalInMilliseconds;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "profile-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalInMilliseconds,
+                flushIntervalInMilliseconds, TimeUnit.MILLISECONDS);
+        logger.info("Profile write-behind enabled, flushing every {} ms", flushIntervalInMilliseconds);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalInMilliseconds * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // Drain whatever is left so a clean shutdown loses nothing
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueue(Long employeeId, String name, String avatarUrl) {
+        pending.put(employeeId, new ProfileUpdate(employeeId, name, avatarUrl));
+    }
+
+    public void discard(Long employeeId) {
+        // A synchronous save already carries the latest profile, so an older queued one must not overwrite it
+        flushLock.lock();
+        try {
+            pending.remove(employeeId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        flushLock.lock();
+        try {
+            List<ProfileUpdate> batch = new ArrayList<>(pending.size());
+            for (Long employeeId : pending.keySet()) {
+                ProfileUpdate update = pending.remove(employeeId);
+                if (update != null) {
+                    batch.add(update);
+                }
+            }
+            
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(batch));
+                logger.debug("Flushed {} queued profile updates", batch.size());
+            } catch (DataAccessException | TransactionException ex) {
+                logger.error("Failed to flush {} profile updates, requeueing", batch.size(), ex);
+                // Keep newer updates that arrived while this batch was in flight
+                for (ProfileUpdate update : batch) {
+                    pending.putIfAbsent(update.employeeId, update);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void apply(List<ProfileUpdate> batch) {
+        // Goes through the entity mapping; Hibernate groups the dirty rows into JDBC batches on flush
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            List<ProfileUpdate> chunk = batch.subList(from, Math.min(from + batchSize, batch.size()));
+            Map<Long, ProfileUpdate> byId = new HashMap<>();
+            for (ProfileUpdate update : chunk) {
+                byId.put(update.employeeId, update);
+            }
+            List<Employee> employees = authMetrics.recordRepository("findAllById",
+                    () -> employeeRepository.findAllById(byId.keySet()));
+            for (Employee employee : employees) {
+                ProfileUpdate update = byId.get(employee.getId());
+                employee.setName(update.name);
+                employee.setAvatarUrl(update.avatarUrl);
+            }
+            authMetrics.recordRepository("saveAllAndFlush", () -> employeeRepository.saveAllAndFlush(employees));
+        }
+    }
+
+    private static final class ProfileUpdate {
+        private final Long employeeId;
+        private final String name;
+        private final String avatarUrl;
+
+        private ProfileUpdate(Long employeeId, String name, String avatarUrl) {
+            this.employeeId = employeeId;
+            this.name = name;
+            this.avatarUrl = avatarUrl;
+        }
+    }
+}
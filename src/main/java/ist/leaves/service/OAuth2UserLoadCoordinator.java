@@ -0,0 +1,96 @@
+
+package ist.leaves.service;
+
+import ist.leaves.exception.OAuth2AuthenticationProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Component
+public class OAuth2UserLoadCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OAuth2UserLoadCoordinator.class);
+
+    private final Semaphore permits;
+    private final long timeoutInMilliseconds;
+
+    // One in-flight load per subject; concurrent logins of the same user share the same result
+    private final Map<String, CompletableFuture<OAuth2User>> inFlight = new ConcurrentHashMap<>();
+
+    public OAuth2UserLoadCoordinator(@Value("${oauth2.user-load.max-concurrency:50}") int maxConcurrency,
+                                     @Value("${oauth2.user-load.timeout:10000}") long timeoutInMilliseconds) {
+        this.permits = new Semaphore(maxConcurrency);
+        this.timeoutInMilliseconds = timeoutInMilliseconds;
+    }
+
+    public OAuth2User load(String key, Supplier<OAuth2User> loader) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMilliseconds);
+        CompletableFuture<OAuth2User> created = new CompletableFuture<>();
+        CompletableFuture<OAuth2User> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            logger.debug("Joining in-flight OAuth2 user load");
+            return await(existing, deadline);
+        }
+
+        // The load runs on the calling request thread; the permit only caps how many run at once
+        try {
+            if (!acquirePermit(deadline)) {
+                throw new OAuth2AuthenticationProcessingException("Too many concurrent logins, please retry");
+            }
+            try {
+                OAuth2User user = loader.get();
+                created.complete(user);
+                return user;
+            } finally {
+                permits.release();
+            }
+        } catch (RuntimeException | Error ex) {
+            created.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private boolean acquirePermit(long deadline) {
+        try {
+            return permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private OAuth2User await(CompletableFuture<OAuth2User> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof AuthenticationException) {
+                throw (AuthenticationException) cause;
+            }
+            throw new OAuth2AuthenticationProcessingException("Failed to load OAuth2 user", cause);
+        } catch (TimeoutException ex) {
+            throw new OAuth2AuthenticationProcessingException("Timed out loading OAuth2 user", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OAuth2AuthenticationProcessingException("Interrupted while loading OAuth2 user", ex);
+        }
+    }
+}
@@ -4,13 +4,20 @@ package ist.leaves.service;
 import java.util.Map;
 import java.util.Optional;
 
+import io.micrometer.core.instrument.Timer;
+import ist.leaves.metrics.AuthMetrics;
 import ist.leaves.security.CustomOAuth2User;
+import ist.leaves.security.CustomOidcUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 import ist.leaves.entity.Employee;
@@ -24,28 +31,78 @@ public class UserService extends DefaultOAuth2UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final EmployeeRepository employeeRepository;
     private final Environment environment;
+    private final EmployeeIdentityCache identityCache;
+    private final EmployeeProfileWriteBehind profileWriteBehind;
+    private final OAuth2UserLoadCoordinator userLoadCoordinator;
+    private final AuthMetrics authMetrics;
 
     public UserService(EmployeeRepository employeeRepository,
-                       Environment environment) {
+                       Environment environment,
+                       EmployeeIdentityCache identityCache,
+                       EmployeeProfileWriteBehind profileWriteBehind,
+                       OAuth2UserLoadCoordinator userLoadCoordinator,
+                       AuthMetrics authMetrics) {
         this.employeeRepository = employeeRepository;
         this.environment = environment;
+        this.identityCache = identityCache;
+        this.profileWriteBehind = profileWriteBehind;
+        this.userLoadCoordinator = userLoadCoordinator;
+        this.authMetrics = authMetrics;
     }
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
-        OAuth2User oAuth2User = super.loadUser(userRequest);
+        // Concurrent logins of the same user share one upstream userinfo call
+        return userLoadCoordinator.load(loadKey(userRequest), () -> fetchAndProcessUser(userRequest));
+    }
+
+    // The openid scope sends logins through the OIDC user service, so it has to end up here as well
+    public OidcUser loadOidcUser(OidcUserRequest userRequest) throws OAuth2AuthenticationException {
+        CustomOAuth2User user = (CustomOAuth2User) loadUser(userRequest);
+        OidcIdToken idToken = userRequest.getIdToken();
+        
+        Object userInfoSubject = user.getAttributes().get("sub");
+        if (userInfoSubject != null && !userInfoSubject.equals(idToken.getSubject())) {
+            throw new OAuth2AuthenticationException(new OAuth2Error("invalid_user_info_response"),
+                    "User info subject does not match the ID token");
+        }
+        return new CustomOidcUser(user.getEmployee(), user.getAttributes(), idToken);
+    }
+
+    private static String loadKey(OAuth2UserRequest userRequest) {
+        // Every callback redeems its own code for a new access token, so only the ID token subject repeats
+        if (userRequest instanceof OidcUserRequest) {
+            return "sub:" + ((OidcUserRequest) userRequest).getIdToken().getSubject();
+        }
+        return "token:" + userRequest.getAccessToken().getTokenValue();
+    }
+
+    private OAuth2User fetchAndProcessUser(OAuth2UserRequest userRequest) {
+        // Time the Microsoft userinfo call separately from our own processing
+        Timer.Sample fetchSample = authMetrics.start();
+        OAuth2User oAuth2User;
+        try {
+            oAuth2User = super.loadUser(userRequest);
+            authMetrics.recordUserInfoFetch(fetchSample, null);
+        } catch (RuntimeException ex) {
+            authMetrics.recordUserInfoFetch(fetchSample, ex);
+            throw ex;
+        }
         logger.debug("OAuth2User attributes: {}", oAuth2User.getAttributes());
         
+        Timer.Sample processingSample = authMetrics.start();
         try {
-            return processOAuth2User(userRequest, oAuth2User.getAttributes());
+            return processOAuth2User(userRequest, oAuth2User.getAttributes(), processingSample);
         } catch (Exception ex) {
+            authMetrics.recordUserProcessing(processingSample, ex, false);
             logger.error("Error processing OAuth2 user", ex);
             throw new OAuth2AuthenticationProcessingException(ex.getMessage(), ex.getCause());
         }
     }
 
     private OAuth2User processOAuth2User(OAuth2UserRequest userRequest,
-                                         Map<String, Object> attributes) {
+                                         Map<String, Object> attributes,
+                                         Timer.Sample processingSample) {
         // Extract email from Microsoft attributes
         String email = extractEmail(attributes);
         String microsoftId = extractMicrosoftId(attributes);
@@ -64,33 +121,41 @@ public class UserService extends DefaultOAuth2UserService {
             throw new OAuth2AuthenticationProcessingException("Invalid email domain");
         }
         
-        // Try to find user by email or Microsoft ID
-        Optional<Employee> userByEmail = employeeRepository.findByEmail(email);
-        Optional<Employee> userByMicrosoftId = Optional.empty();
-        
-        if (microsoftId != null && !microsoftId.isEmpty()) {
-            userByMicrosoftId = employeeRepository.findByMicrosoftId(microsoftId);
+        // Recent logins are served from the identity cache; the database is only asked on a miss
+        EmployeeIdentity identity = identityCache.find(email, microsoftId);
+        Employee loaded = null;
+        if (identity == null) {
+            loaded = findExistingEmployee(email, microsoftId);
+            if (loaded != null) {
+                identityCache.put(EmployeeIdentity.from(loaded));
+            }
         }
-
-        Employee employee;
         
-        // If user exists by email or Microsoft ID, update them
-        if (userByEmail.isPresent()) {
-            employee = userByEmail.get();
-            updateExistingUser(employee, microsoftId, name, avatarUrl);
-        } else if (userByMicrosoftId.isPresent()) {
-            employee = userByMicrosoftId.get();
-            // Update email if it changed
-            if (!email.equals(employee.getEmail())) {
-                employee.setEmail(email);
-            }
-            updateExistingUser(employee, microsoftId, name, avatarUrl);
+        boolean newUser = identity == null && loaded == null;
+        
+        Employee employee;
+        if (!newUser) {
+            employee = updateExistingUser(identity != null ? identity : EmployeeIdentity.from(loaded), loaded,
+                    email, microsoftId, name, avatarUrl);
         } else {
             // Register new user
             employee = registerNewUser(microsoftId, email, name, avatarUrl);
         }
         
-        return new CustomOAuth2User(employee, attributes);
+        CustomOAuth2User user = new CustomOAuth2User(employee, attributes);
+        authMetrics.recordUserProcessing(processingSample, null, newUser);
+        return user;
+    }
+
+    private Employee findExistingEmployee(String email, String microsoftId) {
+        // Only fall back to the Microsoft ID query when the email lookup misses
+        Optional<Employee> employee = authMetrics.recordRepository("findByEmail",
+                () -> employeeRepository.findByEmail(email));
+        if (employee.isEmpty() && microsoftId != null && !microsoftId.isEmpty()) {
+            employee = authMetrics.recordRepository("findByMicrosoftId",
+                    () -> employeeRepository.findByMicrosoftId(microsoftId));
+        }
+        return employee.orElse(null);
     }
 
     private Employee registerNewUser(String microsoftId, String email, String name, String avatarUrl) {
@@ -105,28 +170,61 @@ public class UserService extends DefaultOAuth2UserService {
         employee.setActive(true);
         employee.setLeaveBalance(0.0); // Default leave balance
         
-        return employeeRepository.save(employee);
+        Employee saved = authMetrics.recordRepository("save", () -> employeeRepository.save(employee));
+        identityCache.put(EmployeeIdentity.from(saved));
+        return saved;
     }
     
-    private void updateExistingUser(Employee employee, String microsoftId, String name, String avatarUrl) {
-        logger.info("Updating existing user: {}", employee.getEmail());
+    private Employee updateExistingUser(EmployeeIdentity identity, Employee loaded, String email,
+                                        String microsoftId, String name, String avatarUrl) {
+        boolean identityChanged = !email.equals(identity.getEmail())
+                || (microsoftId != null && !microsoftId.equals(identity.getMicrosoftId()));
+        boolean profileChanged = (name != null && !name.equals(identity.getName()))
+                || (avatarUrl != null && !avatarUrl.equals(identity.getAvatarUrl()));
         
-        // Update Microsoft ID if needed
-        if (microsoftId != null && !microsoftId.equals(employee.getMicrosoftId())) {
-            employee.setMicrosoftId(microsoftId);
+        // Most logins change nothing, so skip the write transaction entirely
+        if (!identityChanged && !profileChanged) {
+            logger.debug("No profile changes for user: {}", identity.getEmail());
+            return loaded != null ? loaded : identity.toEmployee();
         }
         
-        // Update name if needed
-        if (name != null && !name.equals(employee.getName())) {
-            employee.setName(name);
+        String newName = name != null ? name : identity.getName();
+        String newAvatarUrl = avatarUrl != null ? avatarUrl : identity.getAvatarUrl();
+        
+        // Name and avatar are cosmetic and can be flushed later without holding up the login
+        if (!identityChanged && profileWriteBehind.isEnabled()) {
+            logger.info("Queueing profile update for user: {}", identity.getEmail());
+            profileWriteBehind.enqueue(identity.getId(), newName, newAvatarUrl);
+            EmployeeIdentity updated = identity.withProfile(newName, newAvatarUrl);
+            identityCache.put(updated);
+            return updated.toEmployee();
         }
         
-        // Update avatar if needed
-        if (avatarUrl != null && !avatarUrl.equals(employee.getAvatarUrl())) {
-            employee.setAvatarUrl(avatarUrl);
+        // Cached identities are partial, so writes always start from the stored row
+        Employee employee = loaded != null ? loaded : loadById(identity);
+        employee.setEmail(email);
+        if (microsoftId != null) {
+            employee.setMicrosoftId(microsoftId);
         }
+        employee.setName(newName);
+        employee.setAvatarUrl(newAvatarUrl);
         
-        employeeRepository.save(employee);
+        logger.info("Updating existing user: {}", employee.getEmail());
+        profileWriteBehind.discard(employee.getId());
+        Employee saved = authMetrics.recordRepository("save", () -> employeeRepository.save(employee));
+        identityCache.invalidate(identity.getEmail(), identity.getMicrosoftId());
+        identityCache.put(EmployeeIdentity.from(saved));
+        return saved;
+    }
+    
+    private Employee loadById(EmployeeIdentity identity) {
+        Optional<Employee> employee = authMetrics.recordRepository("findById",
+                () -> employeeRepository.findById(identity.getId()));
+        if (employee.isEmpty()) {
+            identityCache.evict(identity.getId());
+            throw new OAuth2AuthenticationProcessingException("Employee no longer exists, please sign in again");
+        }
+        return employee.get();
     }
     
     private boolean shouldValidateDomain() {
@@ -139,8 +237,8 @@ public class UserService extends DefaultOAuth2UserService {
         return false;
     }
     
-    // Helper methods to extract Microsoft user info
-    private String extractEmail(Map<String, Object> attributes) {
+    // Helper methods to extract Microsoft user info; package-private for the JMH suite
+    static String extractEmail(Map<String, Object> attributes) {
         if (attributes.containsKey("email")) {
             return (String) attributes.get("email");
         } else if (attributes.containsKey("userPrincipalName")) {
@@ -151,7 +249,7 @@ public class UserService extends DefaultOAuth2UserService {
         return null;
     }
     
-    private String extractMicrosoftId(Map<String, Object> attributes) {
+    static String extractMicrosoftId(Map<String, Object> attributes) {
         if (attributes.containsKey("sub")) {
             return (String) attributes.get("sub");
         } else if (attributes.containsKey("oid")) {
@@ -160,7 +258,7 @@ public class UserService extends DefaultOAuth2UserService {
         return null;
     }
     
-    private String extractName(Map<String, Object> attributes) {
+    static String extractName(Map<String, Object> attributes) {
         if (attributes.containsKey("name")) {
             return (String) attributes.get("name");
         } else if (attributes.containsKey("displayName")) {
@@ -169,7 +267,7 @@ public class UserService extends DefaultOAuth2UserService {
         return null;
     }
     
-    private String extractPicture(Map<String, Object> attributes) {
+    static String extractPicture(Map<String, Object> attributes) {
         if (attributes.containsKey("picture")) {
             return (String) attributes.get("picture");
         }
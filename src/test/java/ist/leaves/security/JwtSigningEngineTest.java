@@ -0,0 +1,174 @@
+
+package ist.leaves.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import ist.leaves.entity.Role;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtSigningEngineTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "a-test-secret-that-is-comfortably-over-256-bits".getBytes(StandardCharsets.US_ASCII));
+
+    private final JwtSigningEngine engine = new JwtSigningEngine(SECRET);
+
+    @Test
+    void employeeTokenParsesWithJjwt() {
+        long now = System.currentTimeMillis();
+        String token = engine.sign("jane@ist.com", "Jane Doe", 42L, Role.ADMIN, now, now + 60_000);
+
+        Claims claims = parse(token);
+        assertEquals("jane@ist.com", claims.getSubject());
+        assertEquals("jane@ist.com", claims.get("email"));
+        assertEquals("Jane Doe", claims.get("name"));
+        assertEquals(42, ((Number) claims.get("employeeId")).intValue());
+        assertEquals("ADMIN", claims.get("role"));
+        assertEquals(List.of("USER", "ADMIN"), claims.get("roles"));
+        assertEquals(now / 1000, claims.getIssuedAt().getTime() / 1000);
+        assertEquals((now + 60_000) / 1000, claims.getExpiration().getTime() / 1000);
+    }
+
+    @Test
+    void subjectTokenParsesWithJjwt() {
+        long now = System.currentTimeMillis();
+        Claims claims = parse(engine.sign("jane@ist.com", now, now + 60_000));
+
+        assertEquals("jane@ist.com", claims.getSubject());
+        assertFalse(claims.containsKey("employeeId"));
+    }
+
+    @Test
+    void quotesAndNonAsciiNamesRoundTrip() {
+        long now = System.currentTimeMillis();
+        String name = "Zo\u00eb \"Z\" O'Brien \\ \u65e5\u672c \u0007";
+        String token = engine.sign("zoe@ist.com", name, 7L, Role.USER, now, now + 60_000);
+
+        assertEquals(name, parse(token).get("name"));
+        assertNotNull(engine.verify(token));
+    }
+
+    @Test
+    void nullClaimsAreLeftOut() {
+        long now = System.currentTimeMillis();
+        Claims claims = parse(engine.sign("jane@ist.com", null, null, Role.USER, now, now + 60_000));
+
+        assertFalse(claims.containsKey("name"));
+        assertFalse(claims.containsKey("employeeId"));
+    }
+
+    @Test
+    void verifyReturnsPayloadOfOwnTokens() {
+        long now = System.currentTimeMillis();
+        String token = engine.sign("jane@ist.com", now, now + 60_000);
+        String payload = token.substring(token.indexOf('.') + 1, token.lastIndexOf('.'));
+
+        assertArrayEquals(Base64.getUrlDecoder().decode(payload), engine.verify(token));
+    }
+
+    @Test
+    void verifyRejectsTamperedPayload() {
+        long now = System.currentTimeMillis();
+        String token = engine.sign("jane@ist.com", "Jane", 42L, Role.USER, now, now + 60_000);
+        String[] parts = token.split("\\.");
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                        .replace("\"USER\"]", "\"ADMIN\"]")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        assertNull(engine.verify(parts[0] + "." + forged + "." + parts[2]));
+    }
+
+    @Test
+    void verifyRejectsTamperedSignature() {
+        long now = System.currentTimeMillis();
+        String token = engine.sign("jane@ist.com", now, now + 60_000);
+        int signature = token.lastIndexOf('.') + 1;
+        char first = token.charAt(signature);
+
+        assertNull(engine.verify(token.substring(0, signature) + (first == 'A' ? 'B' : 'A')
+                + token.substring(signature + 1)));
+    }
+
+    @Test
+    void verifyRejectsNonCanonicalSignatureEncoding() {
+        long now = System.currentTimeMillis();
+        String token = engine.sign("jane@ist.com", now, now + 60_000);
+        // The low bits of the last character are unused, so this decodes to the same signature bytes
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        char last = token.charAt(token.length() - 1);
+        String variant = token.substring(0, token.length() - 1) + alphabet.charAt(alphabet.indexOf(last) ^ 1);
+
+        assertNull(engine.verify(variant));
+    }
+
+    @Test
+    void verifyRejectsOtherHeaders() {
+        long now = System.currentTimeMillis();
+        String token = engine.sign("jane@ist.com", now, now + 60_000);
+        String rest = token.substring(token.indexOf('.'));
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        assertNull(engine.verify(encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.US_ASCII)) + rest));
+        assertNull(engine.verify(encoder.encodeToString("{\"alg\":\"HS512\"}".getBytes(StandardCharsets.US_ASCII)) + rest));
+    }
+
+    @Test
+    void verifyRejectsTokensFromAnotherKey() {
+        long now = System.currentTimeMillis();
+        JwtSigningEngine other = new JwtSigningEngine(Base64.getEncoder().encodeToString(
+                "another-secret-that-is-also-over-256-bits-long".getBytes(StandardCharsets.US_ASCII)));
+
+        assertNull(engine.verify(other.sign("jane@ist.com", now, now + 60_000)));
+    }
+
+    @Test
+    void verifyRejectsMalformedTokens() {
+        assertNull(engine.verify(""));
+        assertNull(engine.verify("not-a-token"));
+        assertNull(engine.verify("eyJhbGciOiJIUzI1NiJ9.payload"));
+        assertNull(engine.verify("eyJhbGciOiJIUzI1NiJ9.e30.%%%"));
+    }
+
+    @Test
+    void expiredTokensAreRejectedByJjwt() {
+        long now = System.currentTimeMillis();
+        String token = engine.sign("jane@ist.com", now - 120_000, now - 60_000);
+
+        assertThrows(ExpiredJwtException.class, () -> parse(token));
+    }
+
+    @Test
+    void rejectsShortSecrets() {
+        String shortSecret = Base64.getEncoder().encodeToString(new byte[31]);
+
+        assertThrows(IllegalStateException.class, () -> new JwtSigningEngine(shortSecret));
+        assertThrows(IllegalStateException.class, () -> new JwtSigningEngine(""));
+    }
+
+    @Test
+    void acceptsUrlSafeSecrets() {
+        assertNotNull(new JwtSigningEngine("your_jwt_secret_key_should_be_long_and_secure_in_production"));
+    }
+
+    private static Claims parse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
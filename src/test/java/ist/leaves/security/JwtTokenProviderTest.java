@@ -0,0 +1,63 @@
+
+package ist.leaves.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ist.leaves.entity.Role;
+import ist.leaves.metrics.AuthMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "dGhpcy1pcy1hLXRlc3Qtc2VjcmV0LW9mLWF0LWxlYXN0LTI1Ni1iaXRz";
+
+    private JwtTokenProvider provider;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        AuthMetrics authMetrics = mock(AuthMetrics.class);
+        when(authMetrics.recordTokenGeneration(anyString(), any()))
+                .thenAnswer(invocation -> ((Supplier<String>) invocation.getArgument(1)).get());
+        
+        provider = new JwtTokenProvider(new ObjectMapper(), authMetrics);
+        ReflectionTestUtils.setField(provider, "secretKey", SECRET);
+        ReflectionTestUtils.setField(provider, "validityInMilliseconds", 60_000L);
+        provider.init();
+    }
+
+    @Test
+    void validatesOwnTokens() {
+        Map<String, Object> claims = provider.validateToken(
+                provider.generateToken("jane@ist.com", "Jane", 42L, Role.MANAGER));
+
+        assertNotNull(claims);
+        assertEquals("jane@ist.com", claims.get("sub"));
+        assertEquals("MANAGER", claims.get("role"));
+        assertEquals(42, ((Number) claims.get("employeeId")).intValue());
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        ReflectionTestUtils.setField(provider, "validityInMilliseconds", -1_000L);
+
+        assertNull(provider.validateToken(provider.generateToken("jane@ist.com")));
+    }
+
+    @Test
+    void rejectsGarbage() {
+        assertNull(provider.validateToken("garbage"));
+    }
+}
@@ -0,0 +1,119 @@
+
+package ist.leaves.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RefreshTokenStoreTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void rotationReplacesTheToken() {
+        RefreshTokenStore store = new RefreshTokenStore(HOUR, HOUR, 5, 100);
+        String token = store.issue(1L);
+
+        RefreshTokenStore.Rotation rotation = store.rotate(token);
+
+        assertNotNull(rotation);
+        assertEquals(1L, rotation.getEmployeeId());
+        assertNotEquals(token, rotation.getRefreshToken());
+        assertNotNull(store.rotate(rotation.getRefreshToken()));
+    }
+
+    @Test
+    void reusedTokenRevokesTheWholeFamily() {
+        RefreshTokenStore store = new RefreshTokenStore(HOUR, HOUR, 5, 100);
+        String stolen = store.issue(1L);
+        RefreshTokenStore.Rotation legitimate = store.rotate(stolen);
+
+        assertNull(store.rotate(stolen));
+        assertNull(store.rotate(legitimate.getRefreshToken()));
+    }
+
+    @Test
+    void reuseOnlyRevokesItsOwnFamily() {
+        RefreshTokenStore store = new RefreshTokenStore(HOUR, HOUR, 5, 100);
+        String laptop = store.issue(1L);
+        String phone = store.issue(1L);
+        store.rotate(laptop);
+
+        assertNull(store.rotate(laptop));
+        assertNotNull(store.rotate(phone));
+    }
+
+    @Test
+    void unknownAndEmptyTokensAreRejected() {
+        RefreshTokenStore store = new RefreshTokenStore(HOUR, HOUR, 5, 100);
+
+        assertNull(store.rotate(null));
+        assertNull(store.rotate(""));
+        assertNull(store.rotate("not-a-refresh-token"));
+    }
+
+    @Test
+    void expiredTokensAreRejectedAndSwept() {
+        RefreshTokenStore store = new RefreshTokenStore(-1, HOUR, 5, 100);
+        String token = store.issue(1L);
+        store.issue(2L);
+
+        assertNull(store.rotate(token));
+        assertEquals(2, store.size());
+
+        store.sweepExpired();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void sweepKeepsLiveTokens() {
+        RefreshTokenStore store = new RefreshTokenStore(HOUR, HOUR, 5, 100);
+        String token = store.issue(1L);
+
+        store.sweepExpired();
+
+        assertEquals(1, store.size());
+        assertNotNull(store.rotate(token));
+    }
+
+    @Test
+    void loginsBeyondTheEmployeeLimitEndTheOldestSession() {
+        RefreshTokenStore store = new RefreshTokenStore(HOUR, HOUR, 2, 100);
+        String oldest = store.issue(1L);
+        String middle = store.issue(1L);
+        String newest = store.issue(1L);
+
+        assertNull(store.rotate(oldest));
+        assertNotNull(store.rotate(middle));
+        assertNotNull(store.rotate(newest));
+    }
+
+    @Test
+    void storeNeverGrowsPastItsCap() {
+        RefreshTokenStore store = new RefreshTokenStore(HOUR, HOUR, 5, 10);
+        String first = store.issue(1L);
+        for (long employeeId = 2; employeeId < 50; employeeId++) {
+            store.issue(employeeId);
+        }
+
+        assertEquals(10, store.size());
+        assertNull(store.rotate(first));
+    }
+
+    @Test
+    void revokeEmployeeEndsEverySession() {
+        RefreshTokenStore store = new RefreshTokenStore(HOUR, HOUR, 5, 100);
+        String laptop = store.issue(1L);
+        RefreshTokenStore.Rotation phone = store.rotate(store.issue(1L));
+        String colleague = store.issue(2L);
+
+        store.revokeEmployee(1L);
+
+        assertNull(store.rotate(laptop));
+        assertNull(store.rotate(phone.getRefreshToken()));
+        assertNotNull(store.rotate(colleague));
+    }
+}
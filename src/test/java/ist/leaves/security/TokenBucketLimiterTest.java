@@ -0,0 +1,107 @@
+
+package ist.leaves.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void admitsAFullBurstThenLimits() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 1, 100, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("ip:10.0.0.1"));
+        }
+        assertTrue(limiter.tryAcquire("ip:10.0.0.1") > 0);
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 2, 100, clock::get);
+        limiter.tryAcquire("employee:1");
+        limiter.tryAcquire("employee:1");
+
+        long wait = limiter.tryAcquire("employee:1");
+        assertEquals(SECOND / 2, wait);
+
+        clock.addAndGet(wait);
+        assertEquals(0, limiter.tryAcquire("employee:1"));
+        assertTrue(limiter.tryAcquire("employee:1") > 0);
+
+        // A long pause refills up to capacity, never beyond it
+        clock.addAndGet(60 * SECOND);
+        assertEquals(0, limiter.tryAcquire("employee:1"));
+        assertEquals(0, limiter.tryAcquire("employee:1"));
+        assertTrue(limiter.tryAcquire("employee:1") > 0);
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 100, clock::get);
+        limiter.tryAcquire("employee:1");
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(SECOND, limiter.tryAcquire("employee:1"));
+        }
+        clock.addAndGet(SECOND);
+        assertEquals(0, limiter.tryAcquire("employee:1"));
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 100, clock::get);
+
+        assertEquals(0, limiter.tryAcquire("employee:1"));
+        assertEquals(0, limiter.tryAcquire("employee:2"));
+        assertTrue(limiter.tryAcquire("employee:1") > 0);
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertEquals(1, TokenBucketLimiter.retryAfterSeconds(1));
+        assertEquals(1, TokenBucketLimiter.retryAfterSeconds(SECOND));
+        assertEquals(2, TokenBucketLimiter.retryAfterSeconds(SECOND + 1));
+        assertEquals(3, TokenBucketLimiter.retryAfterSeconds(5 * SECOND / 2));
+    }
+
+    @Test
+    void idleBucketsAreEvictedFirst() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 3, clock::get);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        limiter.tryAcquire("c");
+
+        clock.addAndGet(2 * SECOND);
+        limiter.tryAcquire("d");
+
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void bucketLimitHoldsWhenEveryBucketIsActive() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 3, clock::get);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire("ip:10.0.0." + i);
+            assertTrue(limiter.size() <= 3);
+        }
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(0, 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1, 1, 0));
+    }
+}
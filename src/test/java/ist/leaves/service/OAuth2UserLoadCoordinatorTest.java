@@ -0,0 +1,188 @@
+package ist.leaves.service;
+
+import ist.leaves.exception.OAuth2AuthenticationProcessingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class OAuth2UserLoadCoordinatorTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final OAuth2User user = mock(OAuth2User.class);
+
+    @AfterEach
+    void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void runsTheLoadOnTheCallingThread() {
+        OAuth2UserLoadCoordinator coordinator = new OAuth2UserLoadCoordinator(1, 1000);
+        AtomicReference<Thread> loadThread = new AtomicReference<>();
+
+        OAuth2User loaded = coordinator.load("sub:a", () -> {
+            loadThread.set(Thread.currentThread());
+            return user;
+        });
+
+        assertSame(user, loaded);
+        assertSame(Thread.currentThread(), loadThread.get());
+        assertEquals(0, coordinator.inFlightCount());
+    }
+
+    @Test
+    void concurrentLoadsOfTheSameSubjectShareOneCall() throws Exception {
+        OAuth2UserLoadCoordinator coordinator = new OAuth2UserLoadCoordinator(1, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<OAuth2User> leader = callers.submit(() -> coordinator.load("sub:a", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return user;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Joining does not need a permit, so the single permit held by the leader does not block it
+        Future<OAuth2User> follower = join(coordinator, "sub:a", () -> {
+            calls.incrementAndGet();
+            return mock(OAuth2User.class);
+        });
+        release.countDown();
+
+        assertSame(user, leader.get(5, TimeUnit.SECONDS));
+        assertSame(user, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, coordinator.inFlightCount());
+    }
+
+    @Test
+    void rejectsLoadsThatCannotGetAPermitBeforeTheTimeout() throws Exception {
+        OAuth2UserLoadCoordinator coordinator = new OAuth2UserLoadCoordinator(1, 100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<OAuth2User> holder = callers.submit(() -> coordinator.load("sub:a", () -> {
+            started.countDown();
+            await(release);
+            return user;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        OAuth2AuthenticationProcessingException ex = assertThrows(OAuth2AuthenticationProcessingException.class,
+                () -> coordinator.load("sub:b", () -> {
+                    calls.incrementAndGet();
+                    return user;
+                }));
+        assertEquals("Too many concurrent logins, please retry", ex.getMessage());
+        assertEquals(0, calls.get());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertSame(user, coordinator.load("sub:b", () -> user));
+    }
+
+    @Test
+    void followersSeeTheLeadersAuthenticationFailure() throws Exception {
+        OAuth2UserLoadCoordinator coordinator = new OAuth2UserLoadCoordinator(1, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OAuth2AuthenticationProcessingException failure =
+                new OAuth2AuthenticationProcessingException("Invalid email domain");
+
+        Future<OAuth2User> leader = callers.submit(() -> coordinator.load("sub:a", () -> {
+            started.countDown();
+            await(release);
+            throw failure;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<OAuth2User> follower = join(coordinator, "sub:a", () -> user);
+        release.countDown();
+
+        assertSame(failure, causeOf(leader));
+        assertSame(failure, causeOf(follower));
+        assertEquals(0, coordinator.inFlightCount());
+    }
+
+    @Test
+    void wrapsOtherFailuresForFollowersAndReleasesThePermit() throws Exception {
+        OAuth2UserLoadCoordinator coordinator = new OAuth2UserLoadCoordinator(1, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("userinfo unavailable");
+
+        Future<OAuth2User> leader = callers.submit(() -> coordinator.load("sub:a", () -> {
+            started.countDown();
+            await(release);
+            throw failure;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<OAuth2User> follower = join(coordinator, "sub:a", () -> user);
+        release.countDown();
+
+        assertSame(failure, causeOf(leader));
+        Throwable wrapped = causeOf(follower);
+        assertTrue(wrapped instanceof OAuth2AuthenticationProcessingException);
+        assertSame(failure, wrapped.getCause());
+
+        // A failed load neither leaks its permit nor stays in flight for the next login
+        assertSame(user, coordinator.load("sub:a", () -> user));
+    }
+
+    // Submits a second load and returns once it is parked waiting on the leader's result
+    private Future<OAuth2User> join(OAuth2UserLoadCoordinator coordinator, String key,
+                                    Supplier<OAuth2User> loader) throws InterruptedException {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        Future<OAuth2User> future = callers.submit(() -> {
+            thread.set(Thread.currentThread());
+            return coordinator.load(key, loader);
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.get() == null || thread.get().getState() != Thread.State.TIMED_WAITING) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("second load did not join the in-flight one");
+            }
+            Thread.sleep(1);
+        }
+        return future;
+    }
+
+    private static Throwable causeOf(Future<OAuth2User> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            return ex.getCause();
+        } catch (TimeoutException ex) {
+            throw new AssertionError("load did not finish", ex);
+        }
+        throw new AssertionError("load did not fail");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}